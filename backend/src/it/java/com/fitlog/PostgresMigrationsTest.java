@@ -0,0 +1,221 @@
+package com.fitlog;
+
+import com.fitlog.entity.Exercise;
+import com.fitlog.entity.User;
+import com.fitlog.entity.Workout;
+import com.fitlog.entity.WorkoutExercise;
+import com.fitlog.repository.ExerciseRepository;
+import com.fitlog.repository.UserRepository;
+import com.fitlog.repository.WorkoutExerciseRepository;
+import com.fitlog.repository.WorkoutRepository;
+import com.fitlog.service.PartitionMaintenance;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The production schema: Flyway applies V1..V5 to PostgreSQL 15, and Hibernate checks the entities against the
+// result (ddl-auto=validate, from application.properties). Then the lookups by id run against the partitioned tables.
+@SpringBootTest(properties = {
+    // Keep emails in memory instead of calling SES
+    "email.transport=capture",
+    "email.outbox.poll-interval-ms=3600000"
+})
+@Testcontainers(disabledWithoutDocker = true)
+public class PostgresMigrationsTest {
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private WorkoutExerciseRepository workoutExerciseRepository;
+
+    @Autowired
+    private PartitionMaintenance partitionMaintenance;
+
+    private User saveUser() {
+        User user = new User();
+        user.setEmail("pg+" + UUID.randomUUID().toString().substring(0, 8) + "@example.com");
+        user.setPassword("unused");
+        user.setRole("USER");
+        return userRepository.save(user);
+    }
+
+    private Workout saveWorkout(User user, LocalDate date) {
+        Workout workout = new Workout();
+        workout.setUser(user);
+        workout.setDate(date);
+        return workoutRepository.save(workout);
+    }
+
+    private WorkoutExercise saveWorkoutExercise(Workout workout, User user) {
+        Exercise exercise = new Exercise();
+        exercise.setName("Squat " + UUID.randomUUID());
+        exercise.setPublic(false);
+        exercise.setActive(true);
+        exercise.setCreatedBy(user);
+        exercise = exerciseRepository.save(exercise);
+        WorkoutExercise workoutExercise = new WorkoutExercise();
+        workoutExercise.setWorkout(workout);
+        workoutExercise.setWorkoutDate(workout.getDate());
+        workoutExercise.setExercise(exercise);
+        workoutExercise.setPosition(1);
+        workoutExercise.setSets("[{\"reps\":5}]");
+        return workoutExerciseRepository.save(workoutExercise);
+    }
+
+    @Test
+    void allMigrationsApplyAndMatchTheEntities() {
+        // The context started, so the entities validated against the migrated schema
+        List<String> applied = jdbcTemplate.queryForList(
+                "SELECT version FROM flyway_schema_history WHERE success ORDER BY installed_rank", String.class);
+        assertEquals(List.of("1", "2", "3", "4", "5"), applied);
+        // The current month has its own partitions (created by V4 and PartitionMaintenance)
+        String month = LocalDate.now().toString().substring(0, 7).replace('-', '_');
+        assertNotNull(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, "workouts_p" + month));
+        assertNotNull(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, "workout_exercises_p" + month));
+    }
+
+    @Test
+    void lookupsByIdFindRowsInAnyPartition() {
+        User user = saveUser();
+        User other = saveUser();
+        // One workout in the current month's partition, one in the default partition (far past)
+        for (LocalDate date : List.of(LocalDate.now(), LocalDate.of(1990, 5, 1))) {
+            Workout workout = saveWorkout(user, date);
+            WorkoutExercise workoutExercise = saveWorkoutExercise(workout, user);
+
+            assertTrue(workoutRepository.findByIdAndUserId(workout.getId(), user.getId()).isPresent());
+            assertTrue(workoutRepository.findByIdAndUserId(workout.getId(), other.getId()).isEmpty());
+            assertEquals(date, workoutRepository.findDateByIdAndUserId(workout.getId(), user.getId()).orElseThrow());
+            assertTrue(workoutExerciseRepository.findByIdAndWorkoutUserId(workoutExercise.getId(), user.getId()).isPresent());
+            assertTrue(workoutExerciseRepository.findViewByIdAndWorkoutUserId(workoutExercise.getId(), user.getId()).isPresent());
+            assertTrue(workoutExerciseRepository.findViewByIdAndWorkoutUserId(workoutExercise.getId(), other.getId()).isEmpty());
+
+            assertEquals(0, workoutExerciseRepository.deleteByIdAndWorkoutUserId(workoutExercise.getId(), other.getId()));
+            assertEquals(1, workoutExerciseRepository.deleteByIdAndWorkoutUserId(workoutExercise.getId(), user.getId()));
+            assertEquals(0, workoutRepository.deleteByIdAndUserId(workout.getId(), other.getId()));
+            assertEquals(1, workoutRepository.deleteByIdAndUserId(workout.getId(), user.getId()));
+        }
+    }
+
+    @Test
+    void movingAWorkoutToAnotherMonthMovesItsExercises() {
+        User user = saveUser();
+        LocalDate date = LocalDate.now();
+        Workout workout = saveWorkout(user, date);
+        WorkoutExercise workoutExercise = saveWorkoutExercise(workout, user);
+        LocalDate newDate = date.minusMonths(1);
+        transactionTemplate.executeWithoutResult(status -> {
+            Workout loaded = workoutRepository.findByIdAndUserId(workout.getId(), user.getId()).orElseThrow();
+            loaded.setDate(newDate);
+        });
+        // ON UPDATE CASCADE carried the date over to the exercise, into the other month's partition
+        List<WorkoutExercise> moved = workoutExerciseRepository.findByWorkoutIdAndWorkoutDate(workout.getId(), newDate);
+        assertEquals(List.of(workoutExercise.getId()), moved.stream().map(WorkoutExercise::getId).toList());
+        assertTrue(workoutExerciseRepository.findByWorkoutIdAndWorkoutDate(workout.getId(), date).isEmpty());
+    }
+
+    @Test
+    void databasesCreatedBeforeTheMigrationsAreBaselinedAndMigrated() {
+        // A database as ddl-auto=update left it before Flyway: the V1 tables with data, no schema history.
+        // It lives in a schema of its own next to the application's (public).
+        jdbcTemplate.execute("CREATE SCHEMA baseline_era");
+        String url = postgres.getJdbcUrl();
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                url + (url.contains("?") ? "&" : "?") + "currentSchema=baseline_era", postgres.getUsername(), postgres.getPassword());
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__initial_schema.sql")).execute(dataSource);
+        JdbcTemplate old = new JdbcTemplate(dataSource);
+        UUID userId = UUID.randomUUID();
+        UUID exerciseId = UUID.randomUUID();
+        UUID workoutId = UUID.randomUUID();
+        UUID workoutExerciseId = UUID.randomUUID();
+        LocalDate date = LocalDate.of(2023, 3, 14);
+        old.update("INSERT INTO users (id, email, password, role, email_verified, created_at, updated_at)"
+                + " VALUES (?, 'old@example.com', 'unused', 'USER', true, now(), now())", userId);
+        old.update("INSERT INTO exercises (id, name, is_public, is_active, created_by, created_at, updated_at)"
+                + " VALUES (?, 'Deadlift', true, true, ?, now(), now())", exerciseId, userId);
+        old.update("INSERT INTO workouts (id, user_id, date, created_at, updated_at) VALUES (?, ?, ?, now(), now())",
+                workoutId, userId, date);
+        old.update("INSERT INTO workout_exercises (id, workout_id, exercise_id, position, sets, created_at, updated_at)"
+                + " VALUES (?, ?, ?, 1, '[]', now(), now())", workoutExerciseId, workoutId, exerciseId);
+
+        // What the application does at startup (spring.flyway.baseline-on-migrate, baseline-version=1)
+        Flyway.configure().dataSource(dataSource).schemas("baseline_era")
+                .baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        assertEquals(List.of("1", "2", "3", "4", "5"), old.queryForList(
+                "SELECT version FROM flyway_schema_history WHERE success ORDER BY installed_rank", String.class));
+        // Same tables and columns as the database migrated from empty, which the entities validated against
+        String columns = "SELECT table_name || '.' || column_name || ' ' || data_type || ' ' || is_nullable"
+                + " FROM information_schema.columns WHERE table_schema = ? AND table_name IN"
+                + " ('users', 'exercises', 'workouts', 'workout_exercises', 'refresh_tokens', 'email_outbox') ORDER BY 1";
+        assertEquals(jdbcTemplate.queryForList(columns, String.class, "public"),
+                old.queryForList(columns, String.class, "baseline_era"));
+        // The existing rows moved into the partitions of their month
+        assertEquals("workouts_p2023_03",
+                old.queryForObject("SELECT tableoid::regclass::text FROM workouts WHERE id = ?", String.class, workoutId));
+        assertEquals(date, old.queryForObject("SELECT workout_date FROM workout_exercises_p2023_03 WHERE id = ?",
+                LocalDate.class, workoutExerciseId));
+    }
+
+    @Test
+    void partitionsAreFrozenByOneInstanceAFewPerRun() {
+        // Old months with nothing frozen yet: more candidates than one run freezes (max-freezes-per-run=4)
+        jdbcTemplate.queryForObject("SELECT fitlog_create_partitions(?, ?)", Integer.class,
+                LocalDate.of(2015, 1, 1), LocalDate.of(2015, 3, 1));
+        String frozen = "SELECT count(*) FROM pg_stat_user_tables WHERE relname ~ '_p2015_0[1-3]$' AND last_vacuum IS NOT NULL";
+
+        // Another instance is freezing: this one skips the step
+        SingleConnectionDataSource otherInstance = new SingleConnectionDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword(), false);
+        new JdbcTemplate(otherInstance).queryForObject("SELECT pg_advisory_lock(hashtext('fitlog_partitions_freeze'))::text", String.class);
+        partitionMaintenance.maintain();
+        assertEquals(0, jdbcTemplate.queryForObject(frozen, Integer.class));
+        otherInstance.destroy();
+
+        // Oldest months first
+        partitionMaintenance.maintain();
+        assertEquals(4, jdbcTemplate.queryForObject(frozen, Integer.class));
+        partitionMaintenance.maintain();
+        assertEquals(6, jdbcTemplate.queryForObject(frozen, Integer.class));
+    }
+}
@@ -0,0 +1,35 @@
+package com.fitlog.benchmark;
+
+import com.fitlog.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Cost of issuing and validating access tokens (validation runs on every authenticated request)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+    private final JwtUtil jwtUtil = new JwtUtil();
+    private final UUID userId = UUID.randomUUID();
+    private String token;
+
+    @Setup
+    public void setUp() {
+        token = jwtUtil.generateToken(userId, "bench@example.com", "USER");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(userId, "bench@example.com", "USER");
+    }
+
+    @Benchmark
+    public Claims validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+}
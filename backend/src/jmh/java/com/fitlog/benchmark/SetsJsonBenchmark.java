@@ -0,0 +1,60 @@
+package com.fitlog.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Cost of parsing and serializing the `sets` JSON stored on each workout exercise
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SetsJsonBenchmark {
+    private static final TypeReference<List<Map<String, Object>>> SETS_TYPE = new TypeReference<>() {};
+
+    // Number of sets in the payload
+    @Param({"3", "10", "50"})
+    public int sets;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String payload;
+    private List<Map<String, Object>> parsed;
+
+    // A payload in the format the frontend sends, e.g. [{"reps":10,"weight":62.5}, ...]
+    static String setsPayload(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"reps\":").append(8 + i % 5).append(",\"weight\":").append(40 + 2.5 * i).append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        payload = setsPayload(sets);
+        parsed = objectMapper.readValue(payload, SETS_TYPE);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> parse() throws IOException {
+        return objectMapper.readValue(payload, SETS_TYPE);
+    }
+
+    @Benchmark
+    public JsonNode parseTree() throws IOException {
+        return objectMapper.readTree(payload);
+    }
+
+    @Benchmark
+    public String serialize() throws IOException {
+        return objectMapper.writeValueAsString(parsed);
+    }
+}
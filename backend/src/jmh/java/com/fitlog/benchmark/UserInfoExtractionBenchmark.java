@@ -0,0 +1,56 @@
+package com.fitlog.benchmark;
+
+import com.fitlog.JwtUtil;
+import com.fitlog.controller.WorkoutController;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the controllers' getUserInfo: token lookup in the Authorization header or the cookies, then validation.
+// The method is private in each controller; WorkoutController's copy is called through a method handle.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserInfoExtractionBenchmark {
+    private WorkoutController controller;
+    private MethodHandle getUserInfo;
+    private String authHeader;
+    private HttpServletRequest headerRequest;
+    private HttpServletRequest cookieRequest;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        JwtUtil jwtUtil = new JwtUtil();
+        controller = new WorkoutController(null, null, jwtUtil, null, null);
+        getUserInfo = MethodHandles.privateLookupIn(WorkoutController.class, MethodHandles.lookup())
+                .findVirtual(WorkoutController.class, "getUserInfo",
+                        MethodType.methodType(Optional.class, String.class, HttpServletRequest.class));
+        String token = jwtUtil.generateToken(UUID.randomUUID(), "bench@example.com", "USER");
+        authHeader = "Bearer " + token;
+        headerRequest = new MockHttpServletRequest();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        // A browser sends other cookies too; the jwt cookie is found by a linear scan
+        request.setCookies(new Cookie("theme", "dark"), new Cookie("refresh_token", "x".repeat(43)), new Cookie("jwt", token));
+        cookieRequest = request;
+    }
+
+    @Benchmark
+    public Object fromHeader() throws Throwable {
+        return getUserInfo.invoke(controller, authHeader, headerRequest);
+    }
+
+    @Benchmark
+    public Object fromCookie() throws Throwable {
+        return getUserInfo.invoke(controller, (String) null, cookieRequest);
+    }
+}
@@ -0,0 +1,75 @@
+package com.fitlog.benchmark;
+
+import com.fitlog.controller.WorkoutController.WorkoutWithExercisesDTO;
+import com.fitlog.entity.Exercise;
+import com.fitlog.entity.Workout;
+import com.fitlog.entity.WorkoutExercise;
+import org.openjdk.jmh.annotations.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Cost of building the GET /workouts response for a user's whole history
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkoutDtoBenchmark {
+    // Number of workouts in the history (about 8 exercises each)
+    @Param({"10", "365", "2000"})
+    public int workouts;
+
+    private List<Workout> history;
+    private List<List<WorkoutExercise>> exercises;
+
+    @Setup
+    public void setUp() {
+        List<Exercise> catalog = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Exercise exercise = new Exercise();
+            exercise.setId(UUID.randomUUID());
+            exercise.setName("Exercise " + i);
+            exercise.setMuscleGroups("Chest,Triceps");
+            exercise.setPublic(true);
+            exercise.setActive(true);
+            catalog.add(exercise);
+        }
+        history = new ArrayList<>();
+        exercises = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int w = 0; w < workouts; w++) {
+            Workout workout = new Workout();
+            workout.setId(UUID.randomUUID());
+            workout.setDate(LocalDate.now().minusDays(w));
+            workout.setNotes("Session " + w);
+            workout.setCreatedAt(now);
+            workout.setUpdatedAt(now);
+            history.add(workout);
+            List<WorkoutExercise> wes = new ArrayList<>();
+            for (int e = 0; e < 8; e++) {
+                WorkoutExercise we = new WorkoutExercise();
+                we.setId(UUID.randomUUID());
+                we.setWorkout(workout);
+                we.setExercise(catalog.get((w + e) % catalog.size()));
+                we.setPosition(e + 1);
+                we.setSets(SetsJsonBenchmark.setsPayload(4));
+                wes.add(we);
+            }
+            exercises.add(wes);
+        }
+    }
+
+    @Benchmark
+    public List<WorkoutWithExercisesDTO> buildHistory() {
+        List<WorkoutWithExercisesDTO> result = new ArrayList<>(history.size());
+        for (int i = 0; i < history.size(); i++) {
+            result.add(new WorkoutWithExercisesDTO(history.get(i), exercises.get(i)));
+        }
+        return result;
+    }
+}
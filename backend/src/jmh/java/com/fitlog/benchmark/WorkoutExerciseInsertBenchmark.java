@@ -0,0 +1,129 @@
+package com.fitlog.benchmark;
+
+import com.fitlog.BackendApplication;
+import com.fitlog.entity.Exercise;
+import com.fitlog.entity.User;
+import com.fitlog.entity.Workout;
+import com.fitlog.entity.WorkoutExercise;
+import com.fitlog.repository.ExerciseRepository;
+import com.fitlog.repository.UserRepository;
+import com.fitlog.repository.WorkoutExerciseRepository;
+import com.fitlog.repository.WorkoutRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Insert throughput (rows/s) for multi-row workout exercise writes, before and after JDBC batching.
+// Runs against the test profile's in-memory H2 by default, where a round trip costs almost nothing;
+// for realistic numbers run it against PostgreSQL: -Djmh.args="WorkoutExerciseInsert -jvmArgsAppend -Dbenchmark.profile=dev"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(WorkoutExerciseInsertBenchmark.ROWS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WorkoutExerciseInsertBenchmark {
+    // Rows written per benchmark call (a large import or copying a long history)
+    static final int ROWS = 500;
+
+    private ConfigurableApplicationContext context;
+    private WorkoutExerciseRepository workoutExerciseRepository;
+    private TransactionTemplate transactionTemplate;
+    private EntityManager entityManager;
+    private User user;
+    private Workout workout;
+    private Exercise exercise;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .profiles(System.getProperty("benchmark.profile", "test"))
+                .run("--server.port=0", "--management.server.port=-1", "--email.transport=capture");
+        workoutExerciseRepository = context.getBean(WorkoutExerciseRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        user = new User();
+        user.setEmail("insert-benchmark+" + UUID.randomUUID() + "@example.com");
+        user.setPassword("hash");
+        user.setRole("USER");
+        user = context.getBean(UserRepository.class).save(user);
+        exercise = new Exercise();
+        exercise.setName("Insert Benchmark " + UUID.randomUUID());
+        exercise.setPublic(false);
+        exercise.setActive(true);
+        exercise.setCreatedBy(user);
+        exercise = context.getBean(ExerciseRepository.class).save(exercise);
+        workout = new Workout();
+        workout.setDate(LocalDate.now());
+        workout.setUser(user);
+        workout = context.getBean(WorkoutRepository.class).save(workout);
+    }
+
+    // Keep the table the same size for every iteration
+    @TearDown(Level.Iteration)
+    public void deleteRows() {
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createQuery("DELETE FROM WorkoutExercise we WHERE we.workout.id = :workoutId")
+                .setParameter("workoutId", workout.getId())
+                .executeUpdate());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        deleteRows();
+        context.getBean(WorkoutRepository.class).delete(workout);
+        context.getBean(ExerciseRepository.class).delete(exercise);
+        context.getBean(UserRepository.class).delete(user);
+        context.close();
+    }
+
+    private List<WorkoutExercise> newRows() {
+        List<WorkoutExercise> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            WorkoutExercise we = new WorkoutExercise();
+            we.setWorkout(workout);
+            we.setWorkoutDate(workout.getDate());
+            we.setExercise(exercise);
+            we.setPosition(i + 1);
+            we.setSets(SetsJsonBenchmark.setsPayload(4));
+            rows.add(we);
+        }
+        return rows;
+    }
+
+    // Before: one save() per row, each its own transaction and INSERT round trip
+    @Benchmark
+    public void saveEach() {
+        for (WorkoutExercise we : newRows()) {
+            workoutExerciseRepository.save(we);
+        }
+    }
+
+    // One transaction, but batching switched off for the session: still one round trip per row
+    @Benchmark
+    public void persistAllUnbatched() {
+        List<WorkoutExercise> rows = newRows();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(1);
+            rows.forEach(entityManager::persist);
+        });
+    }
+
+    // After: WorkoutExerciseBulkOperations.insertAll, one JDBC batch per 50 rows
+    @Benchmark
+    public List<WorkoutExercise> insertAll() {
+        return workoutExerciseRepository.insertAll(newRows());
+    }
+}
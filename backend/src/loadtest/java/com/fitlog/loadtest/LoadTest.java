@@ -0,0 +1,138 @@
+package com.fitlog.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model HTTP load generator for the backend.
+ *
+ * Scenario iterations start at a fixed arrival rate (--rate per second), whether or not earlier ones have
+ * finished, like real users. Each step is timed from when its request is sent; each scenario iteration is
+ * timed from its scheduled start (scenario.* entries), so a stalled server shows up as latency instead of
+ * silently lowering the request rate (coordinated omission).
+ *
+ * Iterations run on a cached thread pool, which grows as far as the server's slowness requires
+ * (virtual threads would be lighter but need Java 21; the backend is built for Java 17).
+ *
+ * Options: --base-url http://localhost:8080  --management-url (defaults to base url)  --scenario mixed
+ *          --rate 20  --duration PT60S  --warmup PT10S  --users 20  --out target/loadtest-result.json
+ *          --baseline previous-result.json (prints the change of each percentile against that run)
+ */
+public class LoadTest {
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        String managementUrl = options.getOrDefault("management-url", baseUrl);
+        String scenario = options.getOrDefault("scenario", "mixed");
+        double rate = Double.parseDouble(options.getOrDefault("rate", "20"));
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT60S"));
+        Duration warmup = Duration.parse(options.getOrDefault("warmup", "PT10S"));
+        int userCount = Integer.parseInt(options.getOrDefault("users", "20"));
+        Path out = Path.of(options.getOrDefault("out", "target/loadtest-result.json"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Metrics metrics = new Metrics();
+        Scenarios scenarios = new Scenarios();
+        System.out.printf("Setting up %d users against %s%n", userCount, baseUrl);
+        scenarios.setUp(new Session(client, baseUrl, managementUrl, metrics, false), userCount);
+
+        System.out.printf("Running %s at %.1f/s for %s (+%s warmup)%n", scenario, rate, duration, warmup);
+        ExecutorService workers = Executors.newCachedThreadPool();
+        AtomicInteger failures = new AtomicInteger();
+        long intervalNanos = (long) (1_000_000_000L / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * intervalNanos;
+            if (scheduled >= end) break;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            boolean record = scheduled >= measureFrom;
+            Session session = new Session(client, baseUrl, managementUrl, metrics, record);
+            workers.execute(() -> {
+                try {
+                    scenarios.run(scenario, session);
+                    if (record) metrics.record("scenario." + scenario, System.nanoTime() - scheduled, false);
+                } catch (Exception e) {
+                    if (record) metrics.record("scenario." + scenario, System.nanoTime() - scheduled, true);
+                    if (failures.incrementAndGet() <= 5) System.err.println("Iteration failed: " + e.getMessage());
+                } catch (Throwable t) {
+                    failures.incrementAndGet();
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(2, TimeUnit.MINUTES);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scenario", scenario);
+        result.put("rate", rate);
+        result.put("duration", duration.toString());
+        result.put("finishedAt", Instant.now().toString());
+        result.put("failedIterations", failures.get());
+        result.put("latency", metrics.summary());
+        if (out.getParent() != null) Files.createDirectories(out.getParent());
+        JSON.writeValue(out.toFile(), result);
+        printSummary(JSON.valueToTree(result));
+        System.out.println("Results written to " + out.toAbsolutePath());
+        if (options.containsKey("baseline")) {
+            compare(JSON.readTree(Path.of(options.get("baseline")).toFile()), JSON.valueToTree(result));
+        }
+    }
+
+    private static void printSummary(JsonNode result) {
+        System.out.printf("%-28s %8s %7s %9s %9s %9s %9s%n", "step", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (Iterator<Map.Entry<String, JsonNode>> it = result.get("latency").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            JsonNode s = entry.getValue();
+            System.out.printf("%-28s %8d %7d %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), s.path("count").asLong(),
+                    s.path("errors").asLong(), s.path("p50Ms").asDouble(), s.path("p90Ms").asDouble(),
+                    s.path("p99Ms").asDouble(), s.path("maxMs").asDouble());
+        }
+    }
+
+    // Percent change of p50/p99 per step against a previous run (positive = slower)
+    private static void compare(JsonNode baseline, JsonNode current) {
+        System.out.printf("%nCompared with baseline (%s at %s/s, %s)%n", baseline.path("scenario").asText(),
+                baseline.path("rate").asText(), baseline.path("finishedAt").asText());
+        System.out.printf("%-28s %11s %11s %9s %11s %11s %9s%n", "step", "p50 before", "p50 now", "change", "p99 before", "p99 now", "change");
+        for (Iterator<Map.Entry<String, JsonNode>> it = current.get("latency").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            JsonNode before = baseline.path("latency").path(entry.getKey());
+            if (before.isMissingNode()) continue;
+            JsonNode now = entry.getValue();
+            System.out.printf("%-28s %11.2f %11.2f %8s %11.2f %11.2f %8s%n", entry.getKey(),
+                    before.path("p50Ms").asDouble(), now.path("p50Ms").asDouble(), change(before.path("p50Ms"), now.path("p50Ms")),
+                    before.path("p99Ms").asDouble(), now.path("p99Ms").asDouble(), change(before.path("p99Ms"), now.path("p99Ms")));
+        }
+    }
+
+    private static String change(JsonNode before, JsonNode now) {
+        if (before.asDouble() == 0) return "n/a";
+        return String.format("%+.1f%%", 100 * (now.asDouble() - before.asDouble()) / before.asDouble());
+    }
+}
@@ -0,0 +1,52 @@
+package com.fitlog.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histograms (HdrHistogram, microseconds) and error counts per step and per scenario
+class Metrics {
+    // Up to one minute, 3 significant digits
+    private static final long MAX_MICROS = 60_000_000;
+
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void record(String name, long nanos, boolean error) {
+        recorders.computeIfAbsent(name, n -> new Recorder(MAX_MICROS, 3))
+                .recordValue(Math.min(MAX_MICROS, Math.max(1, nanos / 1000)));
+        if (error) recordError(name);
+    }
+
+    void recordError(String name) {
+        errors.computeIfAbsent(name, n -> new LongAdder()).increment();
+    }
+
+    // Summary per name: count, errors, mean and percentiles in milliseconds
+    Map<String, Map<String, Object>> summary() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        recorders.forEach((name, recorder) -> {
+            Histogram histogram = recorder.getIntervalHistogram();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", histogram.getTotalCount());
+            stats.put("errors", errors.containsKey(name) ? errors.get(name).sum() : 0);
+            stats.put("meanMs", round(histogram.getMean() / 1000));
+            for (double p : new double[] {50, 90, 99, 99.9}) {
+                stats.put("p" + (p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p)) + "Ms",
+                        round(histogram.getValueAtPercentile(p) / 1000.0));
+            }
+            stats.put("maxMs", round(histogram.getMaxValue() / 1000.0));
+            result.put(name, stats);
+        });
+        errors.forEach((name, count) -> result.computeIfAbsent(name, n -> new LinkedHashMap<>(Map.of("count", 0L, "errors", count.sum()))));
+        return result;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
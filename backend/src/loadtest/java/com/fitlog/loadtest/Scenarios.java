@@ -0,0 +1,122 @@
+package com.fitlog.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The load scenarios. One iteration of a scenario is one user's visit:
+ *  - signup:  register, verify the email, log in
+ *  - session: the gym-session loop: create today's workout, add exercises, PUT their sets one by one
+ *  - history: browse the workout history (GET /workouts)
+ *  - mixed:   10% signup, 60% session, 30% history
+ * session and history run as users created during setup, each with a few private exercises.
+ */
+class Scenarios {
+    static final String PASSWORD = "loadtest-password";
+
+    // A user created during setup, with a cached access token
+    static final class User {
+        final String email;
+        final List<String> exerciseIds = new ArrayList<>();
+        volatile String token;
+
+        User(String email) {
+            this.email = email;
+        }
+    }
+
+    private final List<User> users = new ArrayList<>();
+
+    // Create the user pool (not measured)
+    void setUp(Session session, int userCount) throws IOException, InterruptedException {
+        for (int i = 0; i < userCount; i++) {
+            User user = new User(newEmail());
+            user.token = session.signup(user.email, PASSWORD);
+            for (int e = 0; e < 5; e++) {
+                Map<String, Object> exercise = Map.of("name", "Load " + UUID.randomUUID(), "isPublic", false,
+                        "muscleGroups", "chest", "notes", "load test");
+                JsonNode created = Session.expect(session.send("setup.exercise", "POST", "/exercises", exercise, user.token), 201).body();
+                user.exerciseIds.add(created.get("id").asText());
+            }
+            users.add(user);
+        }
+    }
+
+    void run(String scenario, Session session) throws IOException, InterruptedException {
+        switch (scenario) {
+            case "signup" -> signup(session);
+            case "session" -> gymSession(session, randomUser());
+            case "history" -> history(session, randomUser());
+            case "mixed" -> {
+                int roll = ThreadLocalRandom.current().nextInt(100);
+                if (roll < 10) signup(session);
+                else if (roll < 70) gymSession(session, randomUser());
+                else history(session, randomUser());
+            }
+            default -> throw new IllegalArgumentException("Unknown scenario " + scenario);
+        }
+    }
+
+    private void signup(Session session) throws IOException, InterruptedException {
+        session.signup(newEmail(), PASSWORD);
+    }
+
+    private void gymSession(Session session, User user) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Spread sessions over the last year; creating an existing date returns that workout
+        Map<String, Object> workout = Map.of("date", LocalDate.now().minusDays(random.nextInt(365)).toString(), "notes", "load test");
+        JsonNode created = Session.expect(authed(session, user, "session.createWorkout", "POST", "/workouts", workout), 201).body();
+        String workoutId = created.get("id").asText();
+        int exerciseCount = 3 + random.nextInt(4);
+        for (int position = 1; position <= exerciseCount; position++) {
+            Map<String, Object> add = new HashMap<>();
+            add.put("workoutId", workoutId);
+            add.put("exerciseId", user.exerciseIds.get(random.nextInt(user.exerciseIds.size())));
+            add.put("position", position);
+            add.put("sets", "[]");
+            add.put("notes", "load test");
+            String id = Session.expect(authed(session, user, "session.addExercise", "POST", "/workout_exercises", add), 201)
+                    .body().get("id").asText();
+            // Sets are logged one at a time during the session, each PUT sending the whole list
+            StringBuilder sets = new StringBuilder("[");
+            int setCount = 3 + random.nextInt(3);
+            for (int s = 0; s < setCount; s++) {
+                if (s > 0) sets.append(',');
+                sets.append("{\"reps\":").append(5 + random.nextInt(8)).append(",\"weight\":").append(20 + 2.5 * random.nextInt(40)).append('}');
+                Session.expect(authed(session, user, "session.putSets", "PUT", "/workout_exercises/" + id,
+                        Map.of("sets", sets + "]")), 200);
+            }
+        }
+    }
+
+    private void history(Session session, User user) throws IOException, InterruptedException {
+        Session.expect(authed(session, user, "history.getWorkouts", "GET", "/workouts", null), 200);
+    }
+
+    // Send with the user's token; log in again once if it has expired
+    private Session.Response authed(Session session, User user, String step, String method, String path, Object body)
+            throws IOException, InterruptedException {
+        Session.Response response = session.send(step, method, path, body, user.token);
+        if (response.status() == 401) {
+            user.token = session.login("relogin", user.email, PASSWORD);
+            response = session.send(step, method, path, body, user.token);
+        }
+        return response;
+    }
+
+    private User randomUser() {
+        if (users.isEmpty()) throw new IllegalStateException("No users; run with --users > 0");
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+
+    private static String newEmail() {
+        return "load+" + UUID.randomUUID().toString().substring(0, 12) + "@loadtest.fitlog.test";
+    }
+}
@@ -0,0 +1,106 @@
+package com.fitlog.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+// HTTP calls against the backend; every call is timed into the run's Metrics under a step name
+class Session {
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String managementUrl;
+    private final Metrics metrics;
+    private final boolean record;
+
+    Session(HttpClient client, String baseUrl, String managementUrl, Metrics metrics, boolean record) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.managementUrl = managementUrl;
+        this.metrics = metrics;
+        this.record = record;
+    }
+
+    // Response status and parsed JSON body (null if empty or not JSON)
+    record Response(int status, JsonNode body, HttpResponse<String> raw) {}
+
+    Response send(String step, String method, String path, Object body, String token) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        request.method(method, body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(body)));
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            if (record) metrics.recordError(step);
+            throw e;
+        }
+        if (record) metrics.record(step, System.nanoTime() - start, response.statusCode() >= 400);
+        JsonNode json = null;
+        if (!response.body().isEmpty()) {
+            try {
+                json = JSON.readTree(response.body());
+            } catch (IOException e) {
+                // Plain-text bodies (e.g. the JWT filter's 401) are not JSON
+            }
+        }
+        return new Response(response.statusCode(), json, response);
+    }
+
+    // Register, read the verification code from the captured emails, verify and log in; returns the access token
+    String signup(String email, String password) throws IOException, InterruptedException {
+        expect(send("signup.register", "POST", "/users", java.util.Map.of("email", email, "password", password), null), 201);
+        String code = awaitVerificationCode(email);
+        expect(send("signup.verify", "POST", "/users/verify-email", java.util.Map.of("email", email, "code", code), null), 200);
+        return login("signup.login", email, password);
+    }
+
+    String login(String step, String email, String password) throws IOException, InterruptedException {
+        Response response = expect(send(step, "POST", "/users/login", java.util.Map.of("email", email, "password", password), null), 200);
+        // The access token comes back in the jwt cookie
+        for (String cookie : response.raw().headers().allValues("Set-Cookie")) {
+            if (cookie.startsWith("jwt=")) return cookie.substring(4, cookie.indexOf(';') > 0 ? cookie.indexOf(';') : cookie.length());
+        }
+        throw new IOException("Login response has no jwt cookie");
+    }
+
+    // The outbox dispatcher sends the email asynchronously; poll until it shows up (not timed as a step)
+    private String awaitVerificationCode(String email) throws IOException, InterruptedException {
+        URI uri = URI.create(managementUrl + "/actuator/capturedemails/" + URLEncoder.encode(email, StandardCharsets.UTF_8));
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (System.nanoTime() < deadline) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 200) {
+                for (JsonNode message : JSON.readTree(response.body())) {
+                    String text = message.path("body").asText();
+                    int at = text.indexOf("code is: ");
+                    if (at >= 0) return text.substring(at + 9).split("\\s")[0];
+                }
+            } else if (response.statusCode() == 404) {
+                throw new IOException("No capturedemails endpoint: run the backend with email.transport=capture");
+            }
+            Thread.sleep(100);
+        }
+        throw new IOException("No verification email for " + email);
+    }
+
+    static Response expect(Response response, int status) throws IOException {
+        if (response.status() != status) {
+            throw new IOException("Expected " + status + " but got " + response.status() + ": " + response.raw().body());
+        }
+        return response;
+    }
+}
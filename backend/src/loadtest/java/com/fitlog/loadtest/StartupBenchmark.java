@@ -0,0 +1,217 @@
+package com.fitlog.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-start and memory-footprint benchmark.
+ *
+ * Boots BackendApplication in a fresh JVM (--runs times, test profile with H2) and measures:
+ *  - timeToFirstRequestMs: from process start to the first 200 from GET /health
+ *  - heapUsedMb: heap in use after warmup requests and a GC
+ *  - rssMb: resident set size of the process after warmup (Linux/macOS)
+ *  - loadedClasses: classes loaded after warmup
+ * The median of each is compared with benchmarks/startup-baseline.json; the run fails when a metric is
+ * more than --tolerance (default 10%) above its baseline, or has no baseline. --update-baseline writes the
+ * medians instead.
+ *
+ * Options: --runs 5  --warmup-requests 200  --baseline benchmarks/startup-baseline.json  --tolerance 0.10
+ *          --jvm-args "-Xmx512m"  --out target/startup-result.json  --update-baseline true
+ */
+public class StartupBenchmark {
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final String[] METRICS = {"timeToFirstRequestMs", "heapUsedMb", "rssMb", "loadedClasses"};
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        int warmupRequests = Integer.parseInt(options.getOrDefault("warmup-requests", "200"));
+        Path baselineFile = Path.of(options.getOrDefault("baseline", "benchmarks/startup-baseline.json"));
+        double tolerance = Double.parseDouble(options.getOrDefault("tolerance", "0.10"));
+        List<String> jvmArgs = Arrays.asList(options.getOrDefault("jvm-args", "-Xmx512m").split("\\s+"));
+        Path out = Path.of(options.getOrDefault("out", "target/startup-result.json"));
+
+        StartupBenchmark benchmark = new StartupBenchmark();
+        List<Map<String, Double>> samples = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            Map<String, Double> sample = benchmark.measure(jvmArgs, warmupRequests);
+            System.out.printf("Run %d: %s%n", run, sample);
+            samples.add(sample);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("recordedAt", Instant.now().toString());
+        result.put("javaVersion", System.getProperty("java.version"));
+        result.put("jvmArgs", String.join(" ", jvmArgs));
+        result.put("runs", runs);
+        Map<String, Double> medians = new LinkedHashMap<>();
+        for (String metric : METRICS) medians.put(metric, median(samples, metric));
+        result.put("median", medians);
+        if (out.getParent() != null) Files.createDirectories(out.getParent());
+        JSON.writeValue(out.toFile(), result);
+        System.out.println("Medians: " + medians + " (written to " + out.toAbsolutePath() + ")");
+
+        if (Boolean.parseBoolean(options.getOrDefault("update-baseline", "false"))) {
+            JSON.writeValue(baselineFile.toFile(), result);
+            System.out.println("Baseline updated: " + baselineFile.toAbsolutePath());
+            return;
+        }
+        if (!compare(JSON.readTree(baselineFile.toFile()), medians, tolerance)) {
+            System.exit(1);
+        }
+    }
+
+    // Boot the application once and measure it
+    private Map<String, Double> measure(List<String> jvmArgs, int warmupRequests) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), "com.fitlog.BackendApplication",
+                "--spring.profiles.active=test", "--server.port=" + port, "--management.server.port=" + port));
+        String baseUrl = "http://localhost:" + port;
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(Path.of(System.getProperty("java.io.tmpdir"), "fitlog-startup-" + port + ".log").toFile())
+                .start();
+        try {
+            long firstRequestNanos = awaitHealthy(baseUrl, process, start);
+            for (int i = 0; i < warmupRequests; i++) {
+                get(baseUrl + (i % 2 == 0 ? "/health" : "/health/ready"));
+            }
+            gc(process.pid());
+            String prometheus = get(baseUrl + "/actuator/prometheus").body();
+            Map<String, Double> sample = new LinkedHashMap<>();
+            sample.put("timeToFirstRequestMs", firstRequestNanos / 1_000_000.0);
+            sample.put("heapUsedMb", sum(prometheus, "jvm_memory_used_bytes{", "area=\"heap\"") / (1024 * 1024));
+            sample.put("rssMb", rssKb(process.pid()) / 1024);
+            sample.put("loadedClasses", sum(prometheus, "jvm_classes_loaded_classes", ""));
+            return sample;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly();
+        }
+    }
+
+    private long awaitHealthy(String baseUrl, Process process, long start) throws Exception {
+        long deadline = start + Duration.ofMinutes(3).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) throw new IllegalStateException("Application exited with " + process.exitValue());
+            try {
+                if (get(baseUrl + "/health").statusCode() == 200) return System.nanoTime() - start;
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("Application did not become healthy within 3 minutes");
+    }
+
+    private HttpResponse<String> get(String url) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(5)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Sum the values of Prometheus samples whose line starts with the metric and contains the label filter
+    private static double sum(String prometheus, String metric, String labelFilter) {
+        double total = 0;
+        for (String line : prometheus.split("\n")) {
+            if (line.startsWith(metric) && line.contains(labelFilter)) {
+                total += Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+            }
+        }
+        return total;
+    }
+
+    // Full GC in the application (via jcmd), so heap used reflects live data rather than garbage
+    private static void gc(long pid) throws InterruptedException {
+        Path jcmd = Path.of(System.getProperty("java.home"), "bin", "jcmd");
+        if (!Files.isExecutable(jcmd)) return;
+        try {
+            new ProcessBuilder(jcmd.toString(), String.valueOf(pid), "GC.run").redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start().waitFor(30, TimeUnit.SECONDS);
+        } catch (IOException e) {
+            // Measure without the GC
+        }
+    }
+
+    // Resident set size in KB: /proc on Linux, ps elsewhere; NaN if neither works
+    private static double rssKb(long pid) throws InterruptedException {
+        try {
+            Path status = Path.of("/proc/" + pid + "/status");
+            if (Files.exists(status)) {
+                for (String line : Files.readAllLines(status)) {
+                    if (line.startsWith("VmRSS:")) return Double.parseDouble(line.replaceAll("[^0-9]", ""));
+                }
+            }
+            Process ps = new ProcessBuilder("ps", "-o", "rss=", "-p", String.valueOf(pid)).start();
+            String output = new String(ps.getInputStream().readAllBytes()).trim();
+            ps.waitFor();
+            return output.isEmpty() ? Double.NaN : Double.parseDouble(output);
+        } catch (IOException | NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static double median(List<Map<String, Double>> samples, String metric) {
+        double[] values = samples.stream().mapToDouble(s -> s.get(metric)).sorted().toArray();
+        int mid = values.length / 2;
+        double median = values.length % 2 == 1 ? values[mid] : (values[mid - 1] + values[mid]) / 2;
+        return Math.round(median * 10) / 10.0;
+    }
+
+    // Print each metric against the baseline; false if one regressed beyond the tolerance
+    private static boolean compare(JsonNode baseline, Map<String, Double> medians, double tolerance) {
+        JsonNode base = baseline.path("median");
+        boolean ok = true;
+        System.out.printf("%-22s %12s %12s %9s%n", "metric", "baseline", "now", "change");
+        for (String metric : METRICS) {
+            JsonNode before = base.path(metric);
+            double now = medians.get(metric);
+            if (!before.isNumber() || before.asDouble() == 0) {
+                // Nothing to compare with is a failure, not a pass: record a baseline first
+                ok = false;
+                System.out.printf("%-22s %12s %12.1f %9s  NO BASELINE%n", metric, "-", now, "n/a");
+                continue;
+            }
+            if (Double.isNaN(now)) {
+                // Not measurable on this platform (RSS without /proc or ps)
+                System.out.printf("%-22s %12.1f %12s %9s%n", metric, before.asDouble(), "-", "n/a");
+                continue;
+            }
+            double change = (now - before.asDouble()) / before.asDouble();
+            boolean regressed = change > tolerance;
+            ok &= !regressed;
+            System.out.printf("%-22s %12.1f %12.1f %+8.1f%%%s%n", metric, before.asDouble(), now, 100 * change,
+                    regressed ? "  REGRESSION" : "");
+        }
+        if (!ok) System.out.printf("Startup/memory check failed: a metric is more than %.0f%% above the baseline "
+                + "or has none (record one with --update-baseline true)%n", 100 * tolerance);
+        return ok;
+    }
+}
@@ -1,6 +1,7 @@
 package com.fitlog;
 
 import io.jsonwebtoken.Claims;
+import com.fitlog.jfr.RequestEvent;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -16,14 +17,27 @@ import java.io.IOException;
 import java.util.Collections;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import java.util.List;
+import java.util.UUID;
+import com.fitlog.service.TokenRevocationService;
 
 // Filter to authenticate requests using JWT
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
 
-    public JwtAuthFilter(JwtUtil jwtUtil) {
+    public JwtAuthFilter(JwtUtil jwtUtil, TokenRevocationService tokenRevocationService) {
         this.jwtUtil = jwtUtil;
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    // The refresh endpoint authenticates with the refresh token cookie, so an expired access token must not block it.
+    // Health probes are anonymous and frequent; they skip token parsing entirely.
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        // The path within the application (the servlet path is empty under some mappings, e.g. MockMvc)
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return "/users/refresh".equals(path) || "/health".equals(path) || path.startsWith("/health/");
     }
 
     @Override
@@ -44,6 +58,12 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         if (token != null) {
             try {
                 Claims claims = jwtUtil.validateToken(token);
+                // Reject tokens revoked before their expiry (e.g. on logout)
+                if (claims.getId() != null && tokenRevocationService.isRevoked(UUID.fromString(claims.getId()))) {
+                    throw new JwtException("Token revoked");
+                }
+                // Lets JFR events recorded later in this request carry the user id
+                request.setAttribute(RequestEvent.USER_ID_ATTRIBUTE, claims.get("userId"));
                 String role = claims.get("role", String.class);
                 // Set authentication in the context with role as authority
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -5,37 +5,60 @@ import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import java.time.Duration;
 import java.util.Date;
 import java.security.Key;
 import java.util.UUID;
 import org.springframework.stereotype.Component;
+import com.fitlog.jfr.JwtValidationEvent;
 
 // Utility class for generating and validating JWT tokens
 @Component
 public class JwtUtil {
     // Use a strong secret key (in production, load from environment variable or config)
     private static final Key SECRET_KEY = Keys.hmacShaKeyFor("ReplaceThisWithASecretKeyOfAtLeast32Bytes!123456".getBytes());
-    // Token validity: 24 hours
-    private static final long EXPIRATION_MS = 24 * 60 * 60 * 1000;
+    // Access token validity: 15 minutes (clients renew via the refresh token)
+    public static final long ACCESS_TOKEN_TTL_SECONDS = 15 * 60;
 
-    // Generate a JWT token for a user
+    // Generate a short-lived JWT access token for a user.
+    // Each token carries a unique id (jti) so it can be revoked before it expires.
     public String generateToken(UUID userId, String email, String role) {
+        return generateToken(userId, email, role, Duration.ofSeconds(ACCESS_TOKEN_TTL_SECONDS));
+    }
+
+    // Generate an access token valid for the given time (negative for an already expired one, e.g. in tests)
+    public String generateToken(UUID userId, String email, String role, Duration validity) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .claim("userId", userId.toString())
                 .claim("email", email)
                 .claim("role", role)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + validity.toMillis()))
                 .signWith(SECRET_KEY, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    // Validate and parse a JWT token
+    // Validate and parse a JWT token (timed by a JwtValidationEvent while a JFR recording runs)
     public Claims validateToken(String token) throws JwtException {
-        return Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        JwtValidationEvent event = new JwtValidationEvent();
+        event.begin();
+        try {
+            Claims claims = Jwts.parserBuilder()
+                    .setSigningKey(SECRET_KEY)
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+            event.valid = true;
+            event.userId = claims.get("userId", String.class);
+            return claims;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.tagRequest();
+                event.commit();
+            }
+        }
     }
-} 
\ No newline at end of file
+}
@@ -65,9 +65,10 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable()) // Disable CSRF for API
             .authorizeHttpRequests(auth -> auth
-                // Allow public access to POST /users (signup) and POST /users/login (login)
+                // Allow public access to POST /users (signup), POST /users/login (login) and POST /users/refresh (token renewal)
                 .requestMatchers(HttpMethod.POST, "/users").permitAll()
                 .requestMatchers(HttpMethod.POST, "/users/login").permitAll()
+                .requestMatchers(HttpMethod.POST, "/users/refresh").permitAll()
                 .requestMatchers(HttpMethod.POST, "/users/verify-email").permitAll()
                 // Require authentication for all other /users endpoints (including GET /users)
                 .requestMatchers("/users", "/users/", "/users/**").authenticated()
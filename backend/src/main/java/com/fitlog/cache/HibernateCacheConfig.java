@@ -0,0 +1,66 @@
+package com.fitlog.cache;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Regions of the Hibernate second-level cache (hibernate.cache.* in application.properties), held on the heap
+ * of each instance by Ehcache through JCache:
+ * - exercises, users: entities by id (@Cache on Exercise and User)
+ * - exercise-catalog: results of ExerciseRepository.findPublicCatalog
+ * - default-update-timestamps-region: last change of each table, which invalidates cached query results
+ *
+ * Hibernate evicts or updates entries on every change it makes itself, on this instance. Changes made by
+ * other instances, bulk SQL or by hand are only picked up when the entries expire, so the TTLs bound the
+ * staleness; keep them short when running several instances or read replicas. Code that changes a cached
+ * entity must read it from the database, not the cache (see ExerciseRepository.findForUpdateById), or it
+ * would write the stale copy back.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    // A cache manager of its own per application context (tests start several), closed with the session factory
+    @Bean
+    public CacheManager hibernateCacheManager(
+            @Value("${cache.exercises.max-entries:10000}") long exercisesMaxEntries,
+            @Value("${cache.exercises.ttl:PT10M}") Duration exercisesTtl,
+            @Value("${cache.users.max-entries:10000}") long usersMaxEntries,
+            @Value("${cache.users.ttl:PT5M}") Duration usersTtl,
+            @Value("${cache.exercise-catalog.max-entries:16}") long catalogMaxEntries,
+            @Value("${cache.exercise-catalog.ttl:PT1M}") Duration catalogTtl) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        org.ehcache.config.Configuration configuration = ConfigurationBuilder.newConfigurationBuilder()
+                .withCache("exercises", region(exercisesMaxEntries, ExpiryPolicyBuilder.timeToLiveExpiration(exercisesTtl)))
+                .withCache("users", region(usersMaxEntries, ExpiryPolicyBuilder.timeToLiveExpiration(usersTtl)))
+                .withCache("exercise-catalog", region(catalogMaxEntries, ExpiryPolicyBuilder.timeToLiveExpiration(catalogTtl)))
+                // One entry per table; must outlive every cached query result, or stale results would look fresh
+                .withCache("default-update-timestamps-region", region(1000, ExpiryPolicyBuilder.noExpiration()))
+                .build();
+        return provider.getCacheManager(URI.create("urn:fitlog:hibernate-cache:" + UUID.randomUUID()), configuration);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    // A heap region of at most maxEntries entries
+    private static CacheConfigurationBuilder<Object, Object> region(long maxEntries, ExpiryPolicy<Object, Object> expiry) {
+        return CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(expiry);
+    }
+}
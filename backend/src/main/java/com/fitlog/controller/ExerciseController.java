@@ -2,17 +2,19 @@ package com.fitlog.controller;
 
 import com.fitlog.entity.Exercise;
 import com.fitlog.repository.ExerciseRepository;
+import com.fitlog.repository.ExerciseView;
 import com.fitlog.repository.UserRepository;
-import com.fitlog.entity.User;
 import com.fitlog.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.Operation;
 import java.util.*;
-import java.util.stream.Collectors;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.Cookie;
 
@@ -24,12 +26,14 @@ public class ExerciseController {
     private final ExerciseRepository exerciseRepository;
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public ExerciseController(ExerciseRepository exerciseRepository, UserRepository userRepository, JwtUtil jwtUtil) {
+    public ExerciseController(ExerciseRepository exerciseRepository, UserRepository userRepository, JwtUtil jwtUtil, TransactionTemplate transactionTemplate) {
         this.exerciseRepository = exerciseRepository;
         this.userRepository = userRepository;
         this.jwtUtil = jwtUtil;
+        this.transactionTemplate = transactionTemplate;
     }
 
     // Helper method to extract user info from JWT (from header or cookie)
@@ -93,20 +97,24 @@ public class ExerciseController {
         if (exerciseRepository.findByName(request.name).isPresent()) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Exercise name already exists."));
         }
-        // Set createdBy to the current user
-        Optional<User> userOpt = userRepository.findById(userInfo.userId);
-        if (userOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not found."));
-        }
-        User user = userOpt.get();
         Exercise exercise = new Exercise();
         exercise.setName(request.name);
         exercise.setPublic(request.isPublic);
         exercise.setMuscleGroups(request.muscleGroups);
         exercise.setNotes(request.notes);
         exercise.setActive(true);
-        exercise.setCreatedBy(user);
-        exerciseRepository.save(exercise);
+        // Set createdBy to the current user by reference (the JWT already identifies them);
+        // the foreign key constraint rejects the insert if the user no longer exists
+        exercise.setCreatedBy(userRepository.getReferenceById(userInfo.userId));
+        try {
+            exerciseRepository.saveAndFlush(exercise);
+        } catch (DataIntegrityViolationException e) {
+            if (!userRepository.existsById(userInfo.userId)) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not found."));
+            }
+            // Otherwise the unique name was taken concurrently
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Exercise name already exists."));
+        }
         return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
                 "id", exercise.getId(),
                 "name", exercise.getName(),
@@ -132,7 +140,14 @@ public class ExerciseController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required."));
         }
         UserInfo userInfo = userInfoOpt.get();
-        Optional<Exercise> exerciseOpt = exerciseRepository.findById(id);
+        // Read and write in one read-write transaction: the exercise is read from the primary (not the
+        // second-level cache) and locked, and the update applies to the row that was read
+        return transactionTemplate.execute(status -> applyExerciseUpdate(id, request, userInfo));
+    }
+
+    // The update itself, run in a read-write transaction by updateExercise
+    private ResponseEntity<?> applyExerciseUpdate(UUID id, ExerciseRequest request, UserInfo userInfo) {
+        Optional<Exercise> exerciseOpt = exerciseRepository.findForUpdateById(id);
         if (exerciseOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Exercise not found."));
         }
@@ -165,6 +180,7 @@ public class ExerciseController {
      * Get all exercises. Users get public + their own, admins get all.
      */
     @Operation(summary = "Get all exercises", description = "Users get public + their own, admins get all.")
+    @Transactional(readOnly = true)
     @GetMapping
     public ResponseEntity<?> getExercises(
             @RequestHeader(value = "Authorization", required = false) String authHeader,
@@ -174,16 +190,14 @@ public class ExerciseController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required."));
         }
         UserInfo userInfo = userInfoOpt.get();
-        List<Exercise> exercises;
+        // Only active exercises, filtered in the query. Users get the (cached) public catalog plus their own private ones
+        List<ExerciseView> exercises;
         if ("ADMIN".equals(userInfo.role)) {
-            exercises = exerciseRepository.findAll();
+            exercises = exerciseRepository.findActiveViews();
         } else {
-            exercises = exerciseRepository.findAll().stream()
-                    .filter(e -> e.isPublic() || e.getCreatedBy().getId().equals(userInfo.userId))
-                    .collect(Collectors.toList());
+            exercises = new ArrayList<>(exerciseRepository.findPublicCatalog());
+            exercises.addAll(exerciseRepository.findActivePrivateViewsOf(userInfo.userId));
         }
-        // Return only active exercises
-        exercises = exercises.stream().filter(Exercise::isActive).collect(Collectors.toList());
         return ResponseEntity.ok(exercises);
     }
 
@@ -191,6 +205,7 @@ public class ExerciseController {
      * Get a single exercise. Users can get public or their own, admins can get any.
      */
     @Operation(summary = "Get single exercise", description = "Users can get public or their own, admins can get any.")
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<?> getExerciseById(
             @PathVariable UUID id,
@@ -201,15 +216,15 @@ public class ExerciseController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required."));
         }
         UserInfo userInfo = userInfoOpt.get();
-        Optional<Exercise> exerciseOpt = exerciseRepository.findById(id);
+        Optional<ExerciseView> exerciseOpt = exerciseRepository.findViewById(id);
         if (exerciseOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Exercise not found."));
         }
-        Exercise exercise = exerciseOpt.get();
+        ExerciseView exercise = exerciseOpt.get();
         if (!exercise.isActive()) {
             return ResponseEntity.status(HttpStatus.GONE).body(Map.of("error", "Exercise is deleted."));
         }
-        if ("ADMIN".equals(userInfo.role) || exercise.isPublic() || exercise.getCreatedBy().getId().equals(userInfo.userId)) {
+        if ("ADMIN".equals(userInfo.role) || exercise.isPublic() || exercise.createdBy().id().equals(userInfo.userId)) {
             return ResponseEntity.ok(exercise);
         } else {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You are not allowed to access this exercise."));
@@ -230,7 +245,13 @@ public class ExerciseController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required."));
         }
         UserInfo userInfo = userInfoOpt.get();
-        Optional<Exercise> exerciseOpt = exerciseRepository.findById(id);
+        // Like updateExercise: read on the primary and soft delete in the same transaction
+        return transactionTemplate.execute(status -> applyExerciseDelete(id, userInfo));
+    }
+
+    // The soft delete itself, run in a read-write transaction by deleteExercise
+    private ResponseEntity<?> applyExerciseDelete(UUID id, UserInfo userInfo) {
+        Optional<Exercise> exerciseOpt = exerciseRepository.findForUpdateById(id);
         if (exerciseOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Exercise not found."));
         }
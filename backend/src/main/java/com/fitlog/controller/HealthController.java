@@ -1,25 +1,57 @@
 package com.fitlog.controller;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fitlog.service.ReadinessCheck;
 
-// Controller for health check endpoint
-@Tag(name = "Health", description = "Health check endpoint for service status.")
+// Controller for health check endpoints (liveness and readiness probes).
+// These paths skip the JWT filter, so probes cost no token parsing.
+@Tag(name = "Health", description = "Health check endpoints for service status.")
 @RestController
 public class HealthController {
+    private final ReadinessCheck readinessCheck;
+
+    public HealthController(ReadinessCheck readinessCheck) {
+        this.readinessCheck = readinessCheck;
+    }
+
     @Operation(
-        summary = "Health check",
-        description = "Returns a simple status message to indicate the service is running.",
+        summary = "Liveness check",
+        description = "Returns a simple status message to indicate the process is running. Does not touch any dependency. "
+            + "/health is kept as an alias for existing probes.",
         responses = {
-            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Service is healthy.")
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Service is alive.")
         }
     )
-    @GetMapping("/health")
+    @GetMapping({"/health", "/health/live"})
     public Map<String, String> health() {
         // Return a simple status message
         return Map.of("status", "ok");
     }
-} 
\ No newline at end of file
+
+    @Operation(
+        summary = "Readiness check",
+        description = "Checks that the instance can serve traffic: database ping, connection pool saturation and whether "
+            + "its email outbox dispatcher is running. The outbox backlog is reported but does not fail the check. "
+            + "The result is cached for a few hundred milliseconds.",
+        responses = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Service is ready."),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "503", description = "Service is not ready; see checks.")
+        }
+    )
+    @GetMapping("/health/ready")
+    public ResponseEntity<Map<String, Object>> ready() {
+        ReadinessCheck.Result result = readinessCheck.check();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", result.ready() ? "ok" : "unavailable");
+        body.put("checkedAt", result.checkedAt().toString());
+        body.put("checks", result.checks());
+        return ResponseEntity.status(result.ready() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(body);
+    }
+}
@@ -27,7 +27,15 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import java.util.UUID;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.core.env.Environment;
-import com.fitlog.service.EmailService;
+import com.fitlog.service.UserService;
+import com.fitlog.service.RefreshTokenService;
+import com.fitlog.service.TokenRevocationService;
+import com.fitlog.jfr.PasswordHashEvent;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.transaction.annotation.Transactional;
+import com.fitlog.trace.UserCostTracker;
 
 // Controller for user-related endpoints
 @Tag(name = "User", description = "Operations related to user management, registration, login, and deletion.")
@@ -38,15 +46,107 @@ public class UserController {
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     private final JwtUtil jwtUtil;
     private final Environment env; // Inject Spring Environment to check active profiles
-    private final EmailService emailService;
+    private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserCostTracker userCostTracker;
+
+    // Name and path of the refresh token cookie (only sent to /users endpoints)
+    private static final String REFRESH_COOKIE = "refresh_token";
+    private static final String REFRESH_COOKIE_PATH = "/users";
 
     // Inject the UserRepository, JwtUtil, and Environment via constructor
     @Autowired
-    public UserController(UserRepository userRepository, JwtUtil jwtUtil, Environment env, EmailService emailService) {
+    public UserController(UserRepository userRepository, JwtUtil jwtUtil, Environment env, UserService userService,
+                          RefreshTokenService refreshTokenService, TokenRevocationService tokenRevocationService,
+                          UserCostTracker userCostTracker) {
         this.userRepository = userRepository;
         this.jwtUtil = jwtUtil;
         this.env = env;
-        this.emailService = emailService;
+        this.userService = userService;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userCostTracker = userCostTracker;
+    }
+
+    // Returns true if running with the dev or test profile
+    private boolean isDevOrTest() {
+        for (String profile : env.getActiveProfiles()) {
+            if (profile.equals("dev") || profile.equals("test")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Build an HttpOnly, Secure auth cookie (maxAge=0 removes it)
+    private ResponseCookie authCookie(String name, String value, String path, long maxAgeSeconds) {
+        ResponseCookie.ResponseCookieBuilder cookieBuilder = ResponseCookie.from(name, value)
+            .httpOnly(true) // Prevent JS access
+            .secure(true)   // Only send over HTTPS
+            .path(path)
+            .sameSite("Strict")
+            .maxAge(maxAgeSeconds);
+        // Only set domain in production (not dev/test)
+        if (!isDevOrTest()) {
+            cookieBuilder.domain(".fitlogapp.com"); // Allow cookie for all subdomains
+        }
+        return cookieBuilder.build();
+    }
+
+    // Read a cookie value from the request, or null if absent
+    private static String readCookie(jakarta.servlet.http.HttpServletRequest request, String name) {
+        if (request.getCookies() == null) return null;
+        for (jakarta.servlet.http.Cookie cookie : request.getCookies()) {
+            if (name.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    // Hash a password with BCrypt (timed by a PasswordHashEvent while a JFR recording runs)
+    private String hashPassword(String rawPassword) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        try {
+            return passwordEncoder.encode(rawPassword);
+        } finally {
+            commitPasswordHashEvent(event, "encode");
+        }
+    }
+
+    // Check a password against its BCrypt hash (timed by a PasswordHashEvent while a JFR recording runs)
+    private boolean checkPassword(String rawPassword, String hashedPassword) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        try {
+            return passwordEncoder.matches(rawPassword, hashedPassword);
+        } finally {
+            commitPasswordHashEvent(event, "matches");
+        }
+    }
+
+    private static void commitPasswordHashEvent(PasswordHashEvent event, String operation) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.tagRequest();
+            event.commit();
+        }
+    }
+
+    // Revoke the access token (by its jti) so it is rejected until it expires
+    private void revokeAccessToken(String token) {
+        if (token == null || token.isBlank()) return;
+        try {
+            var claims = jwtUtil.validateToken(token);
+            if (claims.getId() != null) {
+                tokenRevocationService.revoke(UUID.fromString(claims.getId()), claims.getExpiration().getTime());
+            }
+        } catch (Exception e) {
+            // Invalid or expired tokens are already unusable
+        }
     }
 
     @Operation(
@@ -58,6 +158,7 @@ public class UserController {
         }
     )
     @PreAuthorize("hasRole('ADMIN')") // Only allow ADMINs
+    @Transactional(readOnly = true)
     @GetMapping
     public List<Map<String, ?>> getUsers() {
         // Fetch all users from the database
@@ -72,6 +173,42 @@ public class UserController {
         )).collect(Collectors.toList());
     }
 
+    @Operation(
+        summary = "Get heaviest users",
+        description = "Returns the users causing the most load over the last `windowMinutes` (1-" + UserCostTracker.MAX_WINDOW_MINUTES + "), ranked by `by`: "
+            + "REQUESTS, DB_TIME, ROWS or RESPONSE_BYTES. Counts are approximate (fixed-memory top-K per minute); "
+            + "ROWS is estimated from the requests sampled by the slow-request log. "
+            + "Only accessible to users with the ADMIN role.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Heaviest users returned successfully."),
+            @ApiResponse(responseCode = "400", description = "Unknown metric or window out of range."),
+            @ApiResponse(responseCode = "403", description = "Forbidden: Only accessible to ADMINs.")
+        }
+    )
+    @PreAuthorize("hasRole('ADMIN')") // Only allow ADMINs
+    @Transactional(readOnly = true)
+    @GetMapping("/heavy-hitters")
+    public ResponseEntity<?> getHeavyHitters(
+            @RequestParam(defaultValue = "REQUESTS") String by,
+            @RequestParam(defaultValue = "15") int windowMinutes,
+            @RequestParam(defaultValue = "10") int limit) {
+        UserCostTracker.Metric metric;
+        try {
+            metric = UserCostTracker.Metric.valueOf(by.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "Unknown metric: " + by));
+        }
+        if (windowMinutes < 1 || windowMinutes > UserCostTracker.MAX_WINDOW_MINUTES || limit < 1) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "windowMinutes must be between 1 and " + UserCostTracker.MAX_WINDOW_MINUTES + " and limit positive."));
+        }
+        List<Map<String, Object>> users = userCostTracker.heaviest(metric, windowMinutes, Math.min(limit, 100));
+        // Add emails in a single query so admins can tell who the users are
+        Map<UUID, String> emails = userRepository.findAllById(users.stream().map(u -> (UUID) u.get("userId")).toList())
+            .stream().collect(Collectors.toMap(User::getId, User::getEmail));
+        users.forEach(u -> u.put("email", emails.get((UUID) u.get("userId"))));
+        return ResponseEntity.ok(Map.of("by", metric, "windowMinutes", windowMinutes, "users", users));
+    }
+
     // DTO for user creation request
     public static class CreateUserRequest {
         public String email;
@@ -114,7 +251,7 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Email already in use."));
         }
         // Hash the password
-        String hashedPassword = passwordEncoder.encode(request.password);
+        String hashedPassword = hashPassword(request.password);
         // Create and save the user
         User user = new User();
         user.setEmail(request.email);
@@ -129,13 +266,13 @@ public class UserController {
         user.setEmailVerificationCode(verificationCode);
         user.setEmailVerificationExpiry(java.time.LocalDateTime.now().plusHours(1));
         user.setEmailVerified(false); // Not verified yet
-        // 3. Send the code to the user's email using Amazon SES
-        //    (Implemented in EmailService)
-        emailService.sendVerificationEmail(user.getEmail(), verificationCode);
+        // 3. Save the user and queue the code email in the same transaction.
+        //    The email is sent in the background (see EmailOutboxDispatcher), so signup
+        //    does not wait for Amazon SES, and no email goes out if the save fails.
         // --- END EMAIL VERIFICATION LOGIC ---
 
         try {
-            userRepository.save(user);
+            userService.registerUser(user, verificationCode);
         } catch (DataIntegrityViolationException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "Invalid data or duplicate email."));
         }
@@ -182,7 +319,7 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid credentials."));
         }
         User user = userOpt.get();
-        if (!passwordEncoder.matches(request.password, user.getPassword())) {
+        if (!checkPassword(request.password, user.getPassword())) {
             // Do not reveal if email or password is wrong
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid credentials."));
         }
@@ -190,35 +327,18 @@ public class UserController {
         if (!user.isEmailVerified()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Email not verified. Please check your email for the verification code."));
         }
-        // Generate JWT token
+        // Generate a short-lived access token and a refresh token
         String token = jwtUtil.generateToken(user.getId(), user.getEmail(), user.getRole());
+        String refreshToken = refreshTokenService.issue(user);
 
-        // Determine if we are in dev or test profile
-        String[] activeProfiles = env.getActiveProfiles();
-        boolean isDevOrTest = false;
-        for (String profile : activeProfiles) {
-            if (profile.equals("dev") || profile.equals("test")) {
-                isDevOrTest = true;
-                break;
-            }
-        }
-
-        // Set JWT as HttpOnly, Secure cookie
-        org.springframework.http.ResponseCookie.ResponseCookieBuilder cookieBuilder = org.springframework.http.ResponseCookie.from("jwt", token)
-            .httpOnly(true) // Prevent JS access
-            .secure(true)   // Only send over HTTPS
-            .path("/")
-            .sameSite("Strict")
-            .maxAge(24 * 60 * 60); // 1 day
-        // Only set domain in production (not dev/test)
-        if (!isDevOrTest) {
-            cookieBuilder.domain(".fitlogapp.com"); // Allow cookie for all subdomains
-        }
-        org.springframework.http.ResponseCookie cookie = cookieBuilder.build();
+        // Set both as HttpOnly, Secure cookies (access token first)
+        ResponseCookie cookie = authCookie("jwt", token, "/", JwtUtil.ACCESS_TOKEN_TTL_SECONDS);
+        ResponseCookie refreshCookie = authCookie(REFRESH_COOKIE, refreshToken, REFRESH_COOKIE_PATH, RefreshTokenService.REFRESH_TOKEN_TTL_SECONDS);
 
         // Return user info only (no token in body)
         return ResponseEntity.ok()
-            .header(org.springframework.http.HttpHeaders.SET_COOKIE, cookie.toString())
+            .header(HttpHeaders.SET_COOKIE, cookie.toString())
+            .header(HttpHeaders.SET_COOKIE, refreshCookie.toString())
             .body(Map.of(
                 "user", Map.of(
                     "id", user.getId(),
@@ -230,47 +350,66 @@ public class UserController {
             ));
     }
 
+    /**
+     * Endpoint to renew the access token.
+     * Exchanges the refresh token cookie for a new access token and a new refresh token (rotation).
+     * The presented refresh token is revoked; presenting it again revokes all of the user's sessions.
+     */
+    @Operation(
+        summary = "Refresh access token",
+        description = "Issues a new access token and rotates the refresh token cookie.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Tokens refreshed, new cookies set."),
+            @ApiResponse(responseCode = "401", description = "Missing, invalid, expired or reused refresh token.")
+        }
+    )
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(jakarta.servlet.http.HttpServletRequest request) {
+        var rotationOpt = refreshTokenService.rotate(readCookie(request, REFRESH_COOKIE));
+        if (rotationOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid or expired refresh token."));
+        }
+        User user = rotationOpt.get().user();
+        String token = jwtUtil.generateToken(user.getId(), user.getEmail(), user.getRole());
+        ResponseCookie cookie = authCookie("jwt", token, "/", JwtUtil.ACCESS_TOKEN_TTL_SECONDS);
+        ResponseCookie refreshCookie = authCookie(REFRESH_COOKIE, rotationOpt.get().refreshToken(), REFRESH_COOKIE_PATH, RefreshTokenService.REFRESH_TOKEN_TTL_SECONDS);
+        return ResponseEntity.ok()
+            .header(HttpHeaders.SET_COOKIE, cookie.toString())
+            .header(HttpHeaders.SET_COOKIE, refreshCookie.toString())
+            .body(Map.of("message", "Token refreshed."));
+    }
+
     /**
      * Endpoint for user logout.
-     * Removes the JWT cookie from the browser by setting it with maxAge=0 and HttpOnly.
-     * This effectively logs the user out on the client side.
+     * Revokes the current access token and refresh token, then removes both cookies from the browser
+     * by setting them with maxAge=0 and HttpOnly.
      *
      * Security: Always use HttpOnly and Secure flags for cookies.
      */
     @Operation(
         summary = "User logout",
-        description = "Logs out the user by removing the JWT cookie.",
+        description = "Logs out the user by revoking the tokens and removing the JWT and refresh token cookies.",
         responses = {
             @ApiResponse(responseCode = "200", description = "Logout successful, JWT cookie removed.")
         }
     )
     @PostMapping("/logout")
-    public ResponseEntity<?> logout() {
-        // Determine if we are in dev or test profile
-        String[] activeProfiles = env.getActiveProfiles();
-        boolean isDevOrTest = false;
-        for (String profile : activeProfiles) {
-            if (profile.equals("dev") || profile.equals("test")) {
-                isDevOrTest = true;
-                break;
-            }
-        }
-        // To log out, set the JWT cookie with maxAge=0 (expires immediately)
-        org.springframework.http.ResponseCookie.ResponseCookieBuilder cookieBuilder = org.springframework.http.ResponseCookie.from("jwt", "")
-            .httpOnly(true)
-            .secure(true)
-            .path("/")
-            .sameSite("Strict")
-            .maxAge(0); // Expire immediately
-        // Only set domain in production (not dev/test)
-        if (!isDevOrTest) {
-            cookieBuilder.domain(".fitlogapp.com");
-        }
-        org.springframework.http.ResponseCookie cookie = cookieBuilder.build();
+    public ResponseEntity<?> logout(
+            @org.springframework.web.bind.annotation.RequestHeader(value = "Authorization", required = false) String authHeader,
+            jakarta.servlet.http.HttpServletRequest request) {
+        // Revoke the access token (header or cookie) so it cannot be replayed until it expires
+        String token = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : readCookie(request, "jwt");
+        revokeAccessToken(token);
+        refreshTokenService.revoke(readCookie(request, REFRESH_COOKIE));
+
+        // To log out, set both cookies with maxAge=0 (expires immediately)
+        ResponseCookie cookie = authCookie("jwt", "", "/", 0);
+        ResponseCookie refreshCookie = authCookie(REFRESH_COOKIE, "", REFRESH_COOKIE_PATH, 0);
 
-        // Return a response with the expired cookie and a message
+        // Return a response with the expired cookies and a message
         return ResponseEntity.ok()
-            .header(org.springframework.http.HttpHeaders.SET_COOKIE, cookie.toString())
+            .header(HttpHeaders.SET_COOKIE, cookie.toString())
+            .header(HttpHeaders.SET_COOKIE, refreshCookie.toString())
             .body(Map.of("message", "Logout successful. JWT cookie removed."));
     }
 
@@ -316,6 +455,7 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "User not found.")
         }
     )
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<?> getUserById(
             @PathVariable UUID id,
@@ -412,8 +552,9 @@ public class UserController {
         if (!userRepository.existsById(userId)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "User not found."));
         }
-        // Delete the user
+        // Delete the user (their refresh tokens are removed with them) and revoke the access token
         userRepository.deleteById(userId);
+        revokeAccessToken(token);
         return ResponseEntity.ok(Map.of("message", "Account deleted successfully."));
     }
 
@@ -0,0 +1,30 @@
+package com.fitlog.controller;
+
+import java.util.Optional;
+
+// ETags of versioned entities (the @Version of Workout and WorkoutExercise) and the If-Match header of conditional PUTs
+final class VersionTags {
+    private VersionTags() {}
+
+    // The ETag of a version, e.g. "3" (quotes included)
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // The version an If-Match header requires; empty without the header or for "*" (any version).
+    // Weak tags (W/"3", as some proxies rewrite them) are accepted; anything else is an IllegalArgumentException.
+    static Optional<Long> requiredVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return Optional.empty();
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new IllegalArgumentException("Not an ETag: " + ifMatch);
+        }
+        // NumberFormatException is an IllegalArgumentException
+        return Optional.of(Long.parseLong(tag.substring(1, tag.length() - 1)));
+    }
+}
@@ -1,14 +1,18 @@
 package com.fitlog.controller;
 
 import com.fitlog.entity.Workout;
-import com.fitlog.entity.User;
 import com.fitlog.repository.WorkoutRepository;
 import com.fitlog.repository.UserRepository;
 import com.fitlog.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.Operation;
 import java.util.*;
@@ -18,6 +22,8 @@ import java.time.LocalDate;
 import com.fitlog.entity.WorkoutExercise;
 import com.fitlog.entity.Exercise;
 import com.fitlog.repository.WorkoutExerciseRepository;
+import com.fitlog.jfr.DtoConstructionEvent;
+import java.util.stream.Collectors;
 
 // Controller for workout-related endpoints
 @Tag(name = "Workout", description = "Operations related to workouts.")
@@ -28,13 +34,15 @@ public class WorkoutController {
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
     private final WorkoutExerciseRepository workoutExerciseRepository;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public WorkoutController(WorkoutRepository workoutRepository, UserRepository userRepository, JwtUtil jwtUtil, WorkoutExerciseRepository workoutExerciseRepository) {
+    public WorkoutController(WorkoutRepository workoutRepository, UserRepository userRepository, JwtUtil jwtUtil, WorkoutExerciseRepository workoutExerciseRepository, TransactionTemplate transactionTemplate) {
         this.workoutRepository = workoutRepository;
         this.userRepository = userRepository;
         this.jwtUtil = jwtUtil;
         this.workoutExerciseRepository = workoutExerciseRepository;
+        this.transactionTemplate = transactionTemplate;
     }
 
     // Helper method to extract user info from JWT (from header or cookie)
@@ -66,6 +74,29 @@ public class WorkoutController {
         UserInfo(UUID userId) { this.userId = userId; }
     }
 
+    // Called when an ownership-scoped query found nothing: 404 if the workout does not exist, 403 otherwise
+    private ResponseEntity<?> notOwnedResponse(UUID workoutId, String forbiddenMessage) {
+        if (!workoutRepository.existsById(workoutId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Workout not found."));
+        }
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", forbiddenMessage));
+    }
+
+    // Bounds of an open-ended date range in getWorkouts
+    private static final LocalDate EARLIEST_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate LATEST_DATE = LocalDate.of(9999, 12, 31);
+
+    // The exercises of all the workouts in one query, grouped by workout. The workouts' date range
+    // limits the query to the partitions holding them.
+    private Map<UUID, List<WorkoutExercise>> exercisesByWorkout(List<Workout> workouts) {
+        if (workouts.isEmpty()) return Map.of();
+        LocalDate first = workouts.stream().map(Workout::getDate).min(LocalDate::compareTo).get();
+        LocalDate last = workouts.stream().map(Workout::getDate).max(LocalDate::compareTo).get();
+        return workoutExerciseRepository
+                .findByWorkoutIdInAndWorkoutDateBetween(workouts.stream().map(Workout::getId).toList(), first, last).stream()
+                .collect(Collectors.groupingBy(we -> we.getWorkout().getId()));
+    }
+
     // DTO for creating/updating workouts
     public static class WorkoutRequest {
         public String date; // ISO format (yyyy-MM-dd)
@@ -96,12 +127,14 @@ public class WorkoutController {
         public int position;
         public String sets;
         public String notes;
+        public long version; // ETag for conditional updates of the workout exercise
         public ExerciseDTO exercise;
         public WorkoutExerciseDTO(WorkoutExercise we) {
             this.id = we.getId();
             this.position = we.getPosition();
             this.sets = we.getSets();
             this.notes = we.getNotes();
+            this.version = we.getVersion();
             this.exercise = new ExerciseDTO(we.getExercise());
         }
     }
@@ -113,14 +146,25 @@ public class WorkoutController {
         public String notes;
         public String createdAt;
         public String updatedAt;
+        public long version; // ETag for conditional updates of the workout
         public List<WorkoutExerciseDTO> exercises;
         public WorkoutWithExercisesDTO(Workout w, List<WorkoutExercise> wes) {
+            DtoConstructionEvent event = new DtoConstructionEvent();
+            event.begin();
             this.id = w.getId();
             this.date = w.getDate().toString();
             this.notes = w.getNotes();
             this.createdAt = w.getCreatedAt().toString();
             this.updatedAt = w.getUpdatedAt().toString();
+            this.version = w.getVersion();
             this.exercises = wes.stream().map(WorkoutExerciseDTO::new).toList();
+            event.end();
+            if (event.shouldCommit()) {
+                event.dtoType = "WorkoutWithExercisesDTO";
+                event.itemCount = wes.size();
+                event.tagRequest();
+                event.commit();
+            }
         }
     }
 
@@ -138,11 +182,6 @@ public class WorkoutController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required."));
         }
         UserInfo userInfo = userInfoOpt.get();
-        Optional<User> userOpt = userRepository.findById(userInfo.userId);
-        if (userOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not found."));
-        }
-        User user = userOpt.get();
         LocalDate workoutDate;
         try {
             // Parse the date from the request
@@ -151,12 +190,12 @@ public class WorkoutController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "Invalid date format. Use yyyy-MM-dd."));
         }
         // Check if a workout already exists for this user and date
-        Optional<Workout> existingWorkoutOpt = workoutRepository.findByUserIdAndDate(user.getId(), workoutDate);
+        Optional<Workout> existingWorkoutOpt = workoutRepository.findByUserIdAndDate(userInfo.userId, workoutDate);
         if (existingWorkoutOpt.isPresent()) {
             // If a workout exists for this date, return it with its exercises (like getWorkoutById)
             Workout existingWorkout = existingWorkoutOpt.get();
             // Fetch all WorkoutExercise entities linked to this workout
-            List<WorkoutExercise> wes = workoutExerciseRepository.findByWorkoutId(existingWorkout.getId());
+            List<WorkoutExercise> wes = workoutExerciseRepository.findByWorkoutIdAndWorkoutDate(existingWorkout.getId(), existingWorkout.getDate());
             // Return the workout and its exercises using the DTO
             return ResponseEntity.status(HttpStatus.CREATED).body(new WorkoutWithExercisesDTO(existingWorkout, wes));
         }
@@ -164,25 +203,44 @@ public class WorkoutController {
         Workout workout = new Workout();
         workout.setDate(workoutDate);
         workout.setNotes(request.notes);
-        workout.setUser(user);
-        workoutRepository.save(workout);
-        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+        // The JWT already identifies the user, so link by reference instead of loading the user row.
+        // If the user was deleted meanwhile, the foreign key constraint rejects the insert.
+        workout.setUser(userRepository.getReferenceById(userInfo.userId));
+        try {
+            workoutRepository.saveAndFlush(workout);
+        } catch (DataIntegrityViolationException e) {
+            if (!userRepository.existsById(userInfo.userId)) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not found."));
+            }
+            // A concurrent request created the workout for this date first (unique user/date constraint)
+            Optional<Workout> concurrentWorkoutOpt = workoutRepository.findByUserIdAndDate(userInfo.userId, workoutDate);
+            if (concurrentWorkoutOpt.isPresent()) {
+                Workout concurrentWorkout = concurrentWorkoutOpt.get();
+                List<WorkoutExercise> wes = workoutExerciseRepository.findByWorkoutIdAndWorkoutDate(concurrentWorkout.getId(), concurrentWorkout.getDate());
+                return ResponseEntity.status(HttpStatus.CREATED).body(new WorkoutWithExercisesDTO(concurrentWorkout, wes));
+            }
+            throw e;
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(VersionTags.of(workout.getVersion())).body(Map.of(
                 "id", workout.getId(),
                 "date", workout.getDate(),
                 "notes", workout.getNotes(),
                 "createdAt", workout.getCreatedAt(),
-                "updatedAt", workout.getUpdatedAt()
+                "updatedAt", workout.getUpdatedAt(),
+                "version", workout.getVersion()
         ));
     }
 
     /**
      * Update a workout. Only the owner can update.
+     * With If-Match (the ETag of the version the client read), only if the workout did not change since (else 412).
      */
-    @Operation(summary = "Update workout", description = "Update a workout. Only the owner can update.")
+    @Operation(summary = "Update workout", description = "Update a workout. Only the owner can update. With If-Match, only if the workout is still at that version (else 412).")
     @PutMapping("/{id}")
     public ResponseEntity<?> updateWorkout(
             @PathVariable UUID id,
             @RequestBody WorkoutRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestHeader(value = "Authorization", required = false) String authHeader,
             HttpServletRequest servletRequest) {
         var userInfoOpt = getUserInfo(authHeader, servletRequest);
@@ -190,14 +248,40 @@ public class WorkoutController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required."));
         }
         UserInfo userInfo = userInfoOpt.get();
-        Optional<Workout> workoutOpt = workoutRepository.findById(id);
+        Optional<Long> requiredVersion;
+        try {
+            requiredVersion = VersionTags.requiredVersion(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "Invalid If-Match header."));
+        }
+        try {
+            // Read and write in one read-write transaction: findById/existsById on their own run read-only and may
+            // be served by a replica (see ReplicaRoutingDataSource), which would act on a stale copy
+            return transactionTemplate.execute(status -> applyWorkoutUpdate(id, request, requiredVersion, userInfo));
+        } catch (DataIntegrityViolationException e) {
+            // Only one workout per user and day (unique user/date constraint)
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "You already have a workout on this date."));
+        } catch (OptimisticLockingFailureException e) {
+            // Another update got in between reading and writing the workout
+            if (requiredVersion.isPresent()) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(Map.of("error", "Workout was changed since version " + requiredVersion.get() + "."));
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Workout is being updated concurrently. Please retry."));
+        }
+    }
+
+    // The update itself, run in a read-write transaction by updateWorkout
+    private ResponseEntity<?> applyWorkoutUpdate(UUID id, WorkoutRequest request, Optional<Long> requiredVersion, UserInfo userInfo) {
+        // Only the owner can update (checked in the query itself)
+        Optional<Workout> workoutOpt = workoutRepository.findByIdAndUserId(id, userInfo.userId);
         if (workoutOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Workout not found."));
+            return notOwnedResponse(id, "You can only update your own workouts.");
         }
         Workout workout = workoutOpt.get();
-        // Only the owner can update
-        if (!workout.getUser().getId().equals(userInfo.userId)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You can only update your own workouts."));
+        if (requiredVersion.isPresent() && requiredVersion.get() != workout.getVersion()) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .eTag(VersionTags.of(workout.getVersion()))
+                    .body(Map.of("error", "Workout was changed since version " + requiredVersion.get() + "."));
         }
         try {
             workout.setDate(LocalDate.parse(request.date));
@@ -205,13 +289,16 @@ public class WorkoutController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "Invalid date format. Use yyyy-MM-dd."));
         }
         workout.setNotes(request.notes);
-        workoutRepository.save(workout);
-        return ResponseEntity.ok(Map.of(
+        // Flush now so a duplicate date or a concurrent update surfaces here, with the new updatedAt and version
+        // in the response. The write only applies if the row still has the version read above.
+        workout = workoutRepository.saveAndFlush(workout);
+        return ResponseEntity.ok().eTag(VersionTags.of(workout.getVersion())).body(Map.of(
                 "id", workout.getId(),
                 "date", workout.getDate(),
                 "notes", workout.getNotes(),
                 "createdAt", workout.getCreatedAt(),
-                "updatedAt", workout.getUpdatedAt()
+                "updatedAt", workout.getUpdatedAt(),
+                "version", workout.getVersion()
         ));
     }
 
@@ -229,25 +316,23 @@ public class WorkoutController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required."));
         }
         UserInfo userInfo = userInfoOpt.get();
-        Optional<Workout> workoutOpt = workoutRepository.findById(id);
-        if (workoutOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Workout not found."));
-        }
-        Workout workout = workoutOpt.get();
-        // Only the owner can delete
-        if (!workout.getUser().getId().equals(userInfo.userId)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You can only delete your own workouts."));
+        // Only the owner can delete: a single DELETE scoped to the current user
+        if (workoutRepository.deleteByIdAndUserId(id, userInfo.userId) == 0) {
+            return notOwnedResponse(id, "You can only delete your own workouts.");
         }
-        workoutRepository.delete(workout); // Hard delete
         return ResponseEntity.ok(Map.of("message", "Workout deleted."));
     }
 
     /**
      * Get all workouts for the current user, including exercises and their details.
+     * Optionally only those dated from..to (inclusive, yyyy-MM-dd); a range only reads the partitions of its months.
      */
-    @Operation(summary = "Get all workouts", description = "Get all workouts associated with the current user, including exercises.")
+    @Operation(summary = "Get all workouts", description = "Get all workouts associated with the current user, including exercises. Optionally limited to the dates from..to (inclusive, yyyy-MM-dd).")
+    @Transactional(readOnly = true)
     @GetMapping
     public ResponseEntity<?> getWorkouts(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
             @RequestHeader(value = "Authorization", required = false) String authHeader,
             HttpServletRequest servletRequest) {
         var userInfoOpt = getUserInfo(authHeader, servletRequest);
@@ -255,12 +340,23 @@ public class WorkoutController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required."));
         }
         UserInfo userInfo = userInfoOpt.get();
-        List<Workout> workouts = workoutRepository.findByUserId(userInfo.userId);
-        // For each workout, fetch its exercises
-        List<WorkoutWithExercisesDTO> result = workouts.stream().map(w -> {
-            List<WorkoutExercise> wes = workoutExerciseRepository.findByWorkoutId(w.getId());
-            return new WorkoutWithExercisesDTO(w, wes);
-        }).toList();
+        List<Workout> workouts;
+        if (from == null && to == null) {
+            workouts = workoutRepository.findByUserId(userInfo.userId);
+        } else {
+            LocalDate fromDate, toDate;
+            try {
+                fromDate = from != null ? LocalDate.parse(from) : EARLIEST_DATE;
+                toDate = to != null ? LocalDate.parse(to) : LATEST_DATE;
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "Invalid date format. Use yyyy-MM-dd."));
+            }
+            workouts = workoutRepository.findByUserIdAndDateBetween(userInfo.userId, fromDate, toDate);
+        }
+        Map<UUID, List<WorkoutExercise>> exercisesByWorkout = exercisesByWorkout(workouts);
+        List<WorkoutWithExercisesDTO> result = workouts.stream()
+                .map(w -> new WorkoutWithExercisesDTO(w, exercisesByWorkout.getOrDefault(w.getId(), List.of())))
+                .toList();
         return ResponseEntity.ok(result);
     }
 
@@ -268,6 +364,7 @@ public class WorkoutController {
      * Get a single workout by ID, including exercises and their details. Must be owned by current user.
      */
     @Operation(summary = "Get single workout", description = "Get a single workout by ID, including exercises. Must be owned by current user.")
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<?> getWorkoutById(
             @PathVariable UUID id,
@@ -278,15 +375,12 @@ public class WorkoutController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required."));
         }
         UserInfo userInfo = userInfoOpt.get();
-        Optional<Workout> workoutOpt = workoutRepository.findById(id);
+        Optional<Workout> workoutOpt = workoutRepository.findByIdAndUserId(id, userInfo.userId);
         if (workoutOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Workout not found."));
+            return notOwnedResponse(id, "You are not allowed to access this workout.");
         }
         Workout workout = workoutOpt.get();
-        if (!workout.getUser().getId().equals(userInfo.userId)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You are not allowed to access this workout."));
-        }
-        List<WorkoutExercise> wes = workoutExerciseRepository.findByWorkoutId(workout.getId());
-        return ResponseEntity.ok(new WorkoutWithExercisesDTO(workout, wes));
+        List<WorkoutExercise> wes = workoutExerciseRepository.findByWorkoutIdAndWorkoutDate(workout.getId(), workout.getDate());
+        return ResponseEntity.ok().eTag(VersionTags.of(workout.getVersion())).body(new WorkoutWithExercisesDTO(workout, wes));
     }
 } 
\ No newline at end of file
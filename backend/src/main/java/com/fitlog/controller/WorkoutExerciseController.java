@@ -4,17 +4,25 @@ import com.fitlog.entity.WorkoutExercise;
 import com.fitlog.entity.Workout;
 import com.fitlog.entity.Exercise;
 import com.fitlog.repository.WorkoutExerciseRepository;
+import com.fitlog.repository.WorkoutExerciseView;
 import com.fitlog.repository.WorkoutRepository;
 import com.fitlog.repository.ExerciseRepository;
+import com.fitlog.service.SetsMerge;
 import com.fitlog.JwtUtil;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.Operation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.Cookie;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.UUID;
 import java.util.Optional;
@@ -29,17 +37,20 @@ public class WorkoutExerciseController {
     private final WorkoutRepository workoutRepository;
     private final ExerciseRepository exerciseRepository;
     private final JwtUtil jwtUtil;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public WorkoutExerciseController(
             WorkoutExerciseRepository workoutExerciseRepository,
             WorkoutRepository workoutRepository,
             ExerciseRepository exerciseRepository,
-            JwtUtil jwtUtil) {
+            JwtUtil jwtUtil,
+            TransactionTemplate transactionTemplate) {
         this.workoutExerciseRepository = workoutExerciseRepository;
         this.workoutRepository = workoutRepository;
         this.exerciseRepository = exerciseRepository;
         this.jwtUtil = jwtUtil;
+        this.transactionTemplate = transactionTemplate;
     }
 
     // Simple DTO for user info (for extracting userId from JWT)
@@ -48,6 +59,30 @@ public class WorkoutExerciseController {
         UserInfo(UUID userId) { this.userId = userId; }
     }
 
+    // Called when an ownership-scoped workout query found nothing: 404 if the workout does not exist, 403 otherwise
+    private ResponseEntity<?> workoutNotOwnedResponse(UUID workoutId, String forbiddenMessage) {
+        if (!workoutRepository.existsById(workoutId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Workout not found."));
+        }
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", forbiddenMessage));
+    }
+
+    // Called when an ownership-scoped workout exercise query found nothing: 404 if it does not exist, 403 otherwise
+    private ResponseEntity<?> notOwnedResponse(UUID workoutExerciseId, String forbiddenMessage) {
+        if (!workoutExerciseRepository.existsById(workoutExerciseId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Workout exercise not found."));
+        }
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", forbiddenMessage));
+    }
+
+    // Called when a write referencing an exercise hit a constraint: 404 if the exercise does not exist
+    private ResponseEntity<?> exerciseConstraintResponse(UUID exerciseId, DataIntegrityViolationException e) {
+        if (exerciseId != null && !exerciseRepository.existsById(exerciseId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Exercise not found."));
+        }
+        throw e;
+    }
+
     // DTO for creating/updating workout exercises
     public static class WorkoutExerciseRequest {
         public UUID workoutId;
@@ -55,6 +90,46 @@ public class WorkoutExerciseController {
         public int position;
         public String sets;
         public String notes;
+        // The sets the client started from (those of the version in If-Match): lets an update made on an
+        // older version be merged when both sides only appended sets
+        public String baseSets;
+    }
+
+    // Attempts of updateWorkoutExercise when other updates keep getting in between reading and writing the row
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+    // Response body of a workout exercise write; its version is also sent as the ETag
+    private static Map<String, Object> body(WorkoutExercise workoutExercise) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", workoutExercise.getId());
+        body.put("workoutId", workoutExercise.getWorkout().getId());
+        body.put("exerciseId", workoutExercise.getExercise().getId());
+        body.put("position", workoutExercise.getPosition());
+        body.put("sets", workoutExercise.getSets());
+        body.put("notes", workoutExercise.getNotes());
+        body.put("createdAt", workoutExercise.getCreatedAt());
+        body.put("updatedAt", workoutExercise.getUpdatedAt());
+        body.put("version", workoutExercise.getVersion());
+        return body;
+    }
+
+    // Whether an update made on an older version changes fields other than the sets that were changed since
+    private static boolean conflictsOutsideSets(WorkoutExerciseRequest request, WorkoutExercise current) {
+        return (request.exerciseId != null && !request.exerciseId.equals(current.getExercise().getId()))
+                || (request.position != 0 && request.position != current.getPosition())
+                || (request.notes != null && !request.notes.equals(current.getNotes()));
+    }
+
+    // The sets an update made on an older version should write, or null if its sets conflict with the ones
+    // written since: both sides must only have appended sets to baseSets (see SetsMerge)
+    private static String mergedSets(WorkoutExerciseRequest request, WorkoutExercise current) {
+        if (request.sets.equals(current.getSets())) {
+            return request.sets;
+        }
+        if (request.baseSets == null) {
+            return null;
+        }
+        return SetsMerge.mergeAppends(request.baseSets, request.sets, current.getSets()).orElse(null);
     }
 
     // Helper method to extract user info from JWT (from header or cookie)
@@ -94,49 +169,46 @@ public class WorkoutExerciseController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required."));
         }
         var userInfo = userInfoOpt.get();
-        // Check workout ownership
-        Optional<Workout> workoutOpt = workoutRepository.findById(request.workoutId);
-        if (workoutOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Workout not found."));
-        }
-        Workout workout = workoutOpt.get();
-        if (!workout.getUser().getId().equals(userInfo.userId)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You can only add exercises to your own workouts."));
+        // Check workout ownership (an indexed lookup of the workout's date, the workout itself is not loaded)
+        Optional<LocalDate> workoutDate = workoutRepository.findDateByIdAndUserId(request.workoutId, userInfo.userId);
+        if (workoutDate.isEmpty()) {
+            return workoutNotOwnedResponse(request.workoutId, "You can only add exercises to your own workouts.");
         }
-        // Check exercise exists
-        Optional<Exercise> exerciseOpt = exerciseRepository.findById(request.exerciseId);
-        if (exerciseOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Exercise not found."));
-        }
-        Exercise exercise = exerciseOpt.get();
+        // Link workout and exercise by reference: only their ids are needed to write the foreign keys.
+        // A missing exercise is reported by the foreign key constraint instead of a SELECT up front.
+        Workout workout = workoutRepository.getReferenceById(request.workoutId);
+        Exercise exercise = exerciseRepository.getReferenceById(request.exerciseId);
         // Create and save
         WorkoutExercise workoutExercise = new WorkoutExercise();
         workoutExercise.setWorkout(workout);
+        workoutExercise.setWorkoutDate(workoutDate.get());
         workoutExercise.setExercise(exercise);
         workoutExercise.setPosition(request.position);
         workoutExercise.setSets(request.sets);
         workoutExercise.setNotes(request.notes);
-        workoutExerciseRepository.save(workoutExercise);
-        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
-                "id", workoutExercise.getId(),
-                "workoutId", workout.getId(),
-                "exerciseId", exercise.getId(),
-                "position", workoutExercise.getPosition(),
-                "sets", workoutExercise.getSets(),
-                "notes", workoutExercise.getNotes(),
-                "createdAt", workoutExercise.getCreatedAt(),
-                "updatedAt", workoutExercise.getUpdatedAt()
-        ));
+        try {
+            workoutExerciseRepository.saveAndFlush(workoutExercise);
+        } catch (DataIntegrityViolationException e) {
+            return exerciseConstraintResponse(request.exerciseId, e);
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(VersionTags.of(workoutExercise.getVersion()))
+                .body(body(workoutExercise));
     }
 
     /**
      * Update a workout exercise. Only the owner of the associated workout can update.
+     * With If-Match (the ETag of the version the client read), the update is conditional: if the workout exercise
+     * changed since, it is merged when both sides only appended sets (send baseSets), otherwise 412 with the
+     * current state. Without If-Match, the update applies to the latest version.
      */
-    @Operation(summary = "Update workout exercise", description = "Update a workout exercise. Only the owner of the workout can update.")
+    @Operation(summary = "Update workout exercise", description = "Update a workout exercise. Only the owner of the workout can update. "
+            + "With If-Match, changes made since that version are merged if both sides only appended sets (requires baseSets), otherwise 412.")
     @PutMapping("/{id}")
     public ResponseEntity<?> updateWorkoutExercise(
             @PathVariable UUID id,
             @RequestBody WorkoutExerciseRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestHeader(value = "Authorization", required = false) String authHeader,
             HttpServletRequest servletRequest) {
         var userInfoOpt = getUserInfo(authHeader, servletRequest);
@@ -144,43 +216,69 @@ public class WorkoutExerciseController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required."));
         }
         var userInfo = userInfoOpt.get();
-        Optional<WorkoutExercise> weOpt = workoutExerciseRepository.findById(id);
+        Optional<Long> requiredVersion;
+        try {
+            requiredVersion = VersionTags.requiredVersion(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "Invalid If-Match header."));
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // Each attempt reads and writes in one read-write transaction: findById/existsById on their own
+                // run read-only and may be served by a replica (see ReplicaRoutingDataSource), which would act on a stale copy
+                return transactionTemplate.execute(status -> applyWorkoutExerciseUpdate(id, request, requiredVersion, userInfo));
+            } catch (DataIntegrityViolationException e) {
+                return exerciseConstraintResponse(request.exerciseId, e);
+            } catch (OptimisticLockingFailureException e) {
+                // Another update got in first: start over from the version it wrote
+                if (attempt == MAX_UPDATE_ATTEMPTS) {
+                    return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Workout exercise is being updated concurrently. Please retry."));
+                }
+            }
+        }
+    }
+
+    // One attempt of an update, run in a read-write transaction by updateWorkoutExercise
+    private ResponseEntity<?> applyWorkoutExerciseUpdate(UUID id, WorkoutExerciseRequest request, Optional<Long> requiredVersion, UserInfo userInfo) {
+        // Check workout ownership (in the query itself)
+        Optional<WorkoutExercise> weOpt = workoutExerciseRepository.findByIdAndWorkoutUserId(id, userInfo.userId);
         if (weOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Workout exercise not found."));
+            return notOwnedResponse(id, "You can only update exercises in your own workouts.");
         }
         WorkoutExercise workoutExercise = weOpt.get();
-        // Check workout ownership
-        if (!workoutExercise.getWorkout().getUser().getId().equals(userInfo.userId)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You can only update exercises in your own workouts."));
+        String sets = request.sets;
+        if (requiredVersion.isPresent() && requiredVersion.get() != workoutExercise.getVersion()) {
+            // Changed since the client read it: merge, or let the client decide with the current state
+            if (request.sets != null) {
+                sets = mergedSets(request, workoutExercise);
+            }
+            if (conflictsOutsideSets(request, workoutExercise) || (request.sets != null && sets == null)) {
+                Map<String, Object> conflict = body(workoutExercise);
+                conflict.put("error", "Workout exercise was changed since version " + requiredVersion.get() + ".");
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                        .eTag(VersionTags.of(workoutExercise.getVersion()))
+                        .body(conflict);
+            }
         }
-        // Optionally update fields
+        // Optionally update fields (the exercise is linked by reference, see createWorkoutExercise)
         if (request.exerciseId != null) {
-            Optional<Exercise> exerciseOpt = exerciseRepository.findById(request.exerciseId);
-            if (exerciseOpt.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Exercise not found."));
-            }
-            workoutExercise.setExercise(exerciseOpt.get());
+            workoutExercise.setExercise(exerciseRepository.getReferenceById(request.exerciseId));
         }
         if (request.position != 0) {
             workoutExercise.setPosition(request.position);
         }
-        if (request.sets != null) {
-            workoutExercise.setSets(request.sets);
+        if (sets != null) {
+            workoutExercise.setSets(sets);
         }
         if (request.notes != null) {
             workoutExercise.setNotes(request.notes);
         }
-        workoutExerciseRepository.save(workoutExercise);
-        return ResponseEntity.ok(Map.of(
-                "id", workoutExercise.getId(),
-                "workoutId", workoutExercise.getWorkout().getId(),
-                "exerciseId", workoutExercise.getExercise().getId(),
-                "position", workoutExercise.getPosition(),
-                "sets", workoutExercise.getSets(),
-                "notes", workoutExercise.getNotes(),
-                "createdAt", workoutExercise.getCreatedAt(),
-                "updatedAt", workoutExercise.getUpdatedAt()
-        ));
+        // Flush now so a missing exercise or a concurrent update surfaces here, with the new updatedAt and version
+        // in the response. The write only applies if the row still has the version read above.
+        workoutExercise = workoutExerciseRepository.saveAndFlush(workoutExercise);
+        return ResponseEntity.ok()
+                .eTag(VersionTags.of(workoutExercise.getVersion()))
+                .body(body(workoutExercise));
     }
 
     /**
@@ -197,16 +295,10 @@ public class WorkoutExerciseController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required."));
         }
         var userInfo = userInfoOpt.get();
-        Optional<WorkoutExercise> weOpt = workoutExerciseRepository.findById(id);
-        if (weOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Workout exercise not found."));
-        }
-        WorkoutExercise workoutExercise = weOpt.get();
-        // Check workout ownership
-        if (!workoutExercise.getWorkout().getUser().getId().equals(userInfo.userId)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You can only delete exercises in your own workouts."));
+        // Check workout ownership and delete in a single statement
+        if (workoutExerciseRepository.deleteByIdAndWorkoutUserId(id, userInfo.userId) == 0) {
+            return notOwnedResponse(id, "You can only delete exercises in your own workouts.");
         }
-        workoutExerciseRepository.delete(workoutExercise);
         return ResponseEntity.ok(Map.of("message", "Workout exercise deleted."));
     }
 
@@ -214,6 +306,7 @@ public class WorkoutExerciseController {
      * Get all workout exercises for a workout. Only the owner can view.
      */
     @Operation(summary = "Get all workout exercises for a workout", description = "Get all workout exercises for a workout you own.")
+    @Transactional(readOnly = true)
     @GetMapping("/by_workout/{workoutId}")
     public ResponseEntity<?> getWorkoutExercisesByWorkout(
             @PathVariable UUID workoutId,
@@ -224,15 +317,11 @@ public class WorkoutExerciseController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required."));
         }
         var userInfo = userInfoOpt.get();
-        Optional<Workout> workoutOpt = workoutRepository.findById(workoutId);
-        if (workoutOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Workout not found."));
-        }
-        Workout workout = workoutOpt.get();
-        if (!workout.getUser().getId().equals(userInfo.userId)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You can only view exercises for your own workouts."));
+        Optional<LocalDate> workoutDate = workoutRepository.findDateByIdAndUserId(workoutId, userInfo.userId);
+        if (workoutDate.isEmpty()) {
+            return workoutNotOwnedResponse(workoutId, "You can only view exercises for your own workouts.");
         }
-        List<WorkoutExercise> exercises = workoutExerciseRepository.findByWorkoutId(workoutId);
+        List<WorkoutExerciseView> exercises = workoutExerciseRepository.findViewsByWorkoutId(workoutId, workoutDate.get());
         return ResponseEntity.ok(exercises);
     }
 
@@ -240,6 +329,7 @@ public class WorkoutExerciseController {
      * Get a single workout exercise by ID. Only the owner of the workout can view.
      */
     @Operation(summary = "Get single workout exercise", description = "Get a single workout exercise by ID. Only the owner of the workout can view.")
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public ResponseEntity<?> getWorkoutExerciseById(
             @PathVariable UUID id,
@@ -250,14 +340,10 @@ public class WorkoutExerciseController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required."));
         }
         var userInfo = userInfoOpt.get();
-        Optional<WorkoutExercise> weOpt = workoutExerciseRepository.findById(id);
+        Optional<WorkoutExerciseView> weOpt = workoutExerciseRepository.findViewByIdAndWorkoutUserId(id, userInfo.userId);
         if (weOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Workout exercise not found."));
-        }
-        WorkoutExercise workoutExercise = weOpt.get();
-        if (!workoutExercise.getWorkout().getUser().getId().equals(userInfo.userId)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "You are not allowed to access this workout exercise."));
+            return notOwnedResponse(id, "You are not allowed to access this workout exercise.");
         }
-        return ResponseEntity.ok(workoutExercise);
+        return ResponseEntity.ok().eTag(VersionTags.of(weOpt.get().version())).body(weOpt.get());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.fitlog.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Measures how far each read replica is behind the primary and reports it to the ReplicaRoutingDataSource.
+ *
+ * The lag query runs on every replica and returns the lag in seconds (datasource.replicas.lag-query). A
+ * replica that cannot be reached, or whose query returns NULL, is reported as unknown and gets no reads
+ * until a later check succeeds.
+ *
+ * Metrics: datasource.replica.lag gauge (seconds, NaN while unknown) tagged with the replica index.
+ */
+public class ReplicaLagMonitor {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final String lagQuery;
+    // Whether the last check of each replica succeeded; failures are logged once, not on every check
+    private final boolean[] reachable;
+
+    public ReplicaLagMonitor(ReplicaRoutingDataSource routingDataSource, String lagQuery, MeterRegistry meterRegistry) {
+        this.routingDataSource = routingDataSource;
+        this.lagQuery = lagQuery;
+        this.reachable = new boolean[routingDataSource.replicaCount()];
+        Arrays.fill(reachable, true);
+        for (int i = 0; i < routingDataSource.replicaCount(); i++) {
+            int index = i;
+            Gauge.builder("datasource.replica.lag", routingDataSource, routing -> {
+                    Duration lag = routing.lag(index);
+                    return lag != null ? lag.toNanos() / 1e9 : Double.NaN;
+                })
+                .description("How far the read replica is behind the primary")
+                .baseUnit("seconds")
+                .tag("replica", String.valueOf(index))
+                .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replicas.lag-check-interval-ms:1000}")
+    public void checkLag() {
+        for (int i = 0; i < routingDataSource.replicaCount(); i++) {
+            Duration lag = measureLag(i);
+            if (lag != null && !reachable[i]) {
+                log.info("Replica {} reports its lag again ({} ms)", i, lag.toMillis());
+            }
+            reachable[i] = lag != null;
+            routingDataSource.reportLag(i, lag);
+        }
+    }
+
+    // Lag of one replica, null if it could not be measured
+    Duration measureLag(int index) {
+        DataSource replica = routingDataSource.replica(index);
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if (resultSet.next()) {
+                double seconds = resultSet.getDouble(1);
+                if (!resultSet.wasNull()) {
+                    return Duration.ofNanos((long) (Math.max(seconds, 0) * 1e9));
+                }
+            }
+            if (reachable[index]) {
+                log.warn("Replica {} did not report its lag; keeping it out of rotation", index);
+            }
+        } catch (SQLException e) {
+            if (reachable[index]) {
+                log.warn("Replica {} lag check failed, keeping it out of rotation: {}", index, e.getMessage());
+            }
+        }
+        return null;
+    }
+}
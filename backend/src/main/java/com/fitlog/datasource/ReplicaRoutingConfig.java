@@ -0,0 +1,62 @@
+package com.fitlog.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Replaces the auto-configured DataSource with a ReplicaRoutingDataSource when replica URLs are configured
+@Configuration
+@ConditionalOnExpression("'${datasource.replicas.urls:}' != ''")
+public class ReplicaRoutingConfig {
+
+    // One bean for all pools, so it is wrapped only once for SQL tracing (see SqlTraceConfig)
+    @Bean
+    public DataSource dataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            // Comma-separated JDBC URLs; the replicas use the primary's credentials and pool settings
+            @Value("${datasource.replicas.urls}") String[] replicaUrls,
+            // Replicas further behind than this get no reads
+            @Value("${datasource.replicas.max-lag:PT5S}") Duration maxLag,
+            // How long a client's reads stay on the primary after one of its read-write transactions
+            @Value("${datasource.replicas.read-your-writes-window:PT10S}") Duration readYourWritesWindow) {
+        HikariDataSource primary = pool(properties, environment, properties.determineUrl(), "fitlog-primary");
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) continue;
+            HikariDataSource replica = pool(properties, environment, url.trim(), "fitlog-replica-" + replicas.size());
+            // Start even if a replica is down; it stays out of rotation until its lag can be measured
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, maxLag, readYourWritesWindow);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${datasource.replicas.lag-query}") String lagQuery) throws SQLException {
+        return new ReplicaLagMonitor(dataSource.unwrap(ReplicaRoutingDataSource.class), lagQuery, meterRegistry);
+    }
+
+    // A Hikari pool configured like the auto-configured one (spring.datasource.*, spring.datasource.hikari.*)
+    private static HikariDataSource pool(DataSourceProperties properties, Environment environment, String url, String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        return pool;
+    }
+}
@@ -0,0 +1,197 @@
+package com.fitlog.datasource;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * DataSource that sends read-only transactions to read replicas and everything else to the primary.
+ *
+ * The target is chosen when a transaction runs its first statement (LazyConnectionDataSourceProxy), by
+ * which time Spring has marked it read-only or not. @Transactional(readOnly = true) work goes to the
+ * replicas in turn, except when:
+ * - no replica is within the lag tolerance. Lag is reported by ReplicaLagMonitor; a replica that has
+ *   not been checked yet or could not be reached counts as too far behind.
+ * - the client ran a read-write transaction within the read-your-writes window, so it sees its own
+ *   changes right after making them even if the replicas have not caught up yet. The end of the window is
+ *   sent to the client in the primary_until cookie (epoch millis), so it holds whichever instance serves the
+ *   next request; instance clocks must agree to well within the window (NTP).
+ *
+ * The repository methods Spring Data implements itself (findById, existsById, findAll, ...) run in a read-only
+ * transaction of their own when called outside one (SimpleJpaRepository), so they go to a replica too: code
+ * that reads rows to update them must do both in one read-write transaction, or it may act on a stale copy.
+ * Work with no transaction at all (declared query methods called outside a transaction, Flyway, schema
+ * validation, plain JDBC) uses the primary, as do unwrap()/isWrapperFor(), so pool metrics and readiness see
+ * the primary pool.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+    private static final String PRIMARY = "primary";
+    // Cookie and request attribute holding the end of the client's read-your-writes window (epoch millis)
+    static final String PRIMARY_UNTIL_COOKIE = "primary_until";
+    private static final String PRIMARY_UNTIL_ATTRIBUTE = "fitlog.primaryUntil";
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final Duration maxLag;
+    private final Duration readYourWritesWindow;
+    // Last measured lag per replica, null while unknown (not checked yet or unreachable)
+    private final AtomicReferenceArray<Duration> replicaLag;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration maxLag, Duration readYourWritesWindow) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLag = maxLag;
+        this.readYourWritesWindow = readYourWritesWindow;
+        this.replicaLag = new AtomicReferenceArray<>(this.replicas.size());
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            targets.put(i, this.replicas.get(i));
+        }
+        AbstractRoutingDataSource router = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return lookupKey();
+            }
+        };
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.setLenientFallback(false);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        // Pool defaults (Hikari, PostgreSQL), so no connection is needed to find them out
+        setDefaultAutoCommit(true);
+        setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        afterPropertiesSet();
+    }
+
+    public int replicaCount() {
+        return replicas.size();
+    }
+
+    public DataSource replica(int index) {
+        return replicas.get(index);
+    }
+
+    // Record the lag of a replica; null when it could not be measured, which takes the replica out of rotation
+    public void reportLag(int index, Duration lag) {
+        replicaLag.set(index, lag);
+    }
+
+    // Last reported lag of a replica, null if unknown
+    public Duration lag(int index) {
+        return replicaLag.get(index);
+    }
+
+    // Which target the current transaction uses: PRIMARY or a replica index
+    Object lookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        ServletRequestAttributes request = currentRequest();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // May write: keep this client's reads on the primary until the replicas have had time to catch up
+            if (request != null) {
+                startReadYourWritesWindow(request);
+            }
+            return PRIMARY;
+        }
+        if (request != null && System.currentTimeMillis() < primaryUntil(request.getRequest())) {
+            return PRIMARY;
+        }
+        Integer replica = nextHealthyReplica();
+        return replica != null ? replica : PRIMARY;
+    }
+
+    // Send the end of the window to the client (once per request; later transactions of the request are
+    // only milliseconds later) and remember it for the rest of the request
+    private void startReadYourWritesWindow(ServletRequestAttributes attributes) {
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getAttribute(PRIMARY_UNTIL_ATTRIBUTE) != null) return;
+        long until = System.currentTimeMillis() + readYourWritesWindow.toMillis();
+        request.setAttribute(PRIMARY_UNTIL_ATTRIBUTE, until);
+        HttpServletResponse response = attributes.getResponse();
+        // A transaction run after the response was sent (e.g. by a streaming body) cannot set the cookie
+        if (response != null && !response.isCommitted()) {
+            ResponseCookie cookie = ResponseCookie.from(PRIMARY_UNTIL_COOKIE, Long.toString(until))
+                    .httpOnly(true)
+                    .secure(true)
+                    .path("/")
+                    .sameSite("Strict")
+                    // Rounded up, so the cookie never expires before the window ends
+                    .maxAge(Duration.ofSeconds((readYourWritesWindow.toMillis() + 999) / 1000))
+                    .build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+        }
+    }
+
+    // End of the client's read-your-writes window (epoch millis), 0 if it has none
+    private static long primaryUntil(HttpServletRequest request) {
+        if (request.getAttribute(PRIMARY_UNTIL_ATTRIBUTE) instanceof Long until) {
+            return until;
+        }
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (PRIMARY_UNTIL_COOKIE.equals(cookie.getName())) {
+                    try {
+                        return Long.parseLong(cookie.getValue());
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    // Round robin over the replicas that are within the lag tolerance, null if there is none
+    private Integer nextHealthyReplica() {
+        int count = replicas.size();
+        if (count == 0) return null;
+        int start = Math.floorMod(nextReplica.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            int index = (start + i) % count;
+            Duration lag = replicaLag.get(index);
+            if (lag != null && lag.compareTo(maxLag) <= 0) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    // The current HTTP request, null outside requests (e.g. scheduled jobs)
+    private static ServletRequestAttributes currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes ? servletAttributes : null;
+    }
+
+    // Close the pools on shutdown
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.fitlog.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// JPA Entity representing an email waiting to be sent (transactional outbox).
+// Rows are written in the same transaction as the change that triggers the email
+// and sent later by EmailOutboxDispatcher.
+@Entity
+@Table(name = "email_outbox")
+public class EmailOutbox {
+    // Delivery state of an outbox row
+    public enum Status { PENDING, SENT, FAILED }
+
+    // Primary key, time-ordered UUID generated on insert
+    @Id
+    @TimeOrderedUuid
+    private UUID id;
+
+    // Recipient email address
+    @Column(nullable = false)
+    private String recipient;
+
+    // Subject line
+    @Column(nullable = false)
+    private String subject;
+
+    // Plain text body
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    // Delivery state
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Status status = Status.PENDING;
+
+    // Number of delivery attempts so far
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    // Earliest time of the next delivery attempt (pushed back after each failure)
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Error message of the last failed attempt
+    @Column(length = 500)
+    private String lastError;
+
+    // When the row was created
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // When the email was handed to the provider
+    private LocalDateTime sentAt;
+
+    // Set timestamps automatically
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+
+    // Getters and setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public String getRecipient() { return recipient; }
+    public void setRecipient(String recipient) { this.recipient = recipient; }
+
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getSentAt() { return sentAt; }
+    public void setSentAt(LocalDateTime sentAt) { this.sentAt = sentAt; }
+}
@@ -1,16 +1,21 @@
 package com.fitlog.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 // JPA Entity representing an exercise
 @Entity
+// Kept in the second-level cache by id (region "exercises", see HibernateCacheConfig)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "exercises")
 @Table(name = "exercises")
 public class Exercise {
-    // Primary key, auto-generated
+    // Primary key, time-ordered UUID generated on insert
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @TimeOrderedUuid
     private UUID id;
 
     // Whether this exercise is public
@@ -41,8 +46,8 @@ public class Exercise {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
-    // Reference to the user who created this exercise (ownership)
-    @ManyToOne(optional = false)
+    // Reference to the user who created this exercise (ownership; lazy, ownership checks only need its id)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "created_by", nullable = false)
     private User createdBy;
 
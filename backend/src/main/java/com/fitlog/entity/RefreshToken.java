@@ -0,0 +1,64 @@
+package com.fitlog.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// JPA Entity representing a refresh token issued at login.
+// Only the SHA-256 hash of the token is stored, never the token itself.
+@Entity
+@Table(name = "refresh_tokens")
+public class RefreshToken {
+    // Primary key, time-ordered UUID generated on insert
+    @Id
+    @TimeOrderedUuid
+    private UUID id;
+
+    // Reference to the user this token belongs to (removed together with the user; lazy)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+
+    // Hex-encoded SHA-256 hash of the token value
+    @Column(nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    // When the token stops being accepted
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Set when the token is rotated or logged out; a revoked token is never accepted again
+    private LocalDateTime revokedAt;
+
+    // When the token was created
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Set timestamp automatically
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Getters and setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+
+    public String getTokenHash() { return tokenHash; }
+    public void setTokenHash(String tokenHash) { this.tokenHash = tokenHash; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    public LocalDateTime getRevokedAt() { return revokedAt; }
+    public void setRevokedAt(LocalDateTime revokedAt) { this.revokedAt = revokedAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,17 @@
+package com.fitlog.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a UUID primary key that is generated as a time-ordered (version 7) UUID on insert.
+// New rows get increasing ids, so they are appended at the end of the primary key index
+// instead of landing on random pages; the column stays a regular UUID.
+@IdGeneratorType(TimeOrderedUuidGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface TimeOrderedUuid {
+}
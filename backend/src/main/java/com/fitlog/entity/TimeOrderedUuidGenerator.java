@@ -0,0 +1,54 @@
+package com.fitlog.entity;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hibernate id generator for @TimeOrderedUuid: version 7 UUIDs (RFC 9562).
+// Layout: 48-bit Unix time in milliseconds, version, 12-bit sequence, variant, 62 random bits.
+// The sequence keeps ids generated in the same millisecond increasing within this JVM;
+// the random bits keep ids from different instances apart.
+public class TimeOrderedUuidGenerator implements BeforeExecutionGenerator {
+    // Last issued (millis << 12 | sequence); shared by all entities
+    private static final AtomicLong LAST = new AtomicLong();
+
+    public TimeOrderedUuidGenerator(TimeOrderedUuid config, Member idMember, CustomIdGeneratorCreationContext context) {
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EnumSet.of(EventType.INSERT);
+    }
+
+    // Next id: never lower than the previous one, even if the clock goes back.
+    // When the 12-bit sequence of a millisecond is used up it carries into the timestamp.
+    public static UUID next() {
+        long now = System.currentTimeMillis() << 12;
+        long timeAndSequence = LAST.updateAndGet(last -> Math.max(now, last + 1));
+        return of(timeAndSequence >>> 12, timeAndSequence & 0xFFF, ThreadLocalRandom.current().nextLong());
+    }
+
+    // Builds the UUID from its fields (only the low 62 bits of random are used)
+    static UUID of(long epochMillis, long sequence, long random) {
+        long msb = (epochMillis << 16) | 0x7000L | (sequence & 0xFFF);
+        long lsb = (random & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    // Creation time encoded in a version 7 id
+    public static long epochMillis(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+}
@@ -1,16 +1,21 @@
 package com.fitlog.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 // JPA Entity representing a user in the system
 @Entity
+// Kept in the second-level cache by id (region "users", see HibernateCacheConfig)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Table(name = "users")
 public class User {
-    // Primary key, auto-generated
+    // Primary key, time-ordered UUID generated on insert
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @TimeOrderedUuid
     private UUID id;
 
     // User's email address (should be unique)
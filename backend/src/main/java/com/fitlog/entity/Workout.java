@@ -5,21 +5,21 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
-// JPA Entity representing a workout
+// JPA Entity representing a workout (at most one per user and day; partitioned by date, see V4 migration)
 @Entity
-@Table(name = "workouts")
+@Table(name = "workouts", uniqueConstraints = @UniqueConstraint(name = "uk_workouts_user_date", columnNames = {"user_id", "date"}))
 public class Workout {
-    // Primary key, auto-generated
+    // Primary key, time-ordered UUID generated on insert
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @TimeOrderedUuid
     private UUID id;
 
-    // Reference to the user who owns this workout
-    @ManyToOne(optional = false)
+    // Reference to the user who owns this workout (lazy: repository methods fetch it only where it is used)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    // Date of the workout (user input)
+    // Date of the workout (user input), the partition key
     @Column(nullable = false)
     private LocalDate date;
 
@@ -35,6 +35,12 @@ public class Workout {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
+    // Optimistic lock: incremented on every update, which fails if the row changed since it was read.
+    // Sent to clients as the ETag; PUT takes it back in If-Match
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     // Set timestamps automatically
     @PrePersist
     protected void onCreate() {
@@ -64,4 +70,7 @@ public class Workout {
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 } 
\ No newline at end of file
@@ -1,25 +1,31 @@
 package com.fitlog.entity;
 
 import jakarta.persistence.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
-// JPA Entity representing an exercise within a workout
+// JPA Entity representing an exercise within a workout (partitioned by the workout's date, see V4 migration)
 @Entity
 @Table(name = "workout_exercises")
 public class WorkoutExercise {
-    // Primary key, auto-generated
+    // Primary key, time-ordered UUID generated on insert
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @TimeOrderedUuid
     private UUID id;
 
-    // Reference to the workout (cascade on delete)
-    @ManyToOne(optional = false)
+    // Reference to the workout (cascade on delete; lazy, like all associations)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "workout_id", nullable = false)
     private Workout workout;
 
-    // Reference to the exercise
-    @ManyToOne(optional = false)
+    // Date of the workout, the partition key: queries that name it only read that month's partition.
+    // Set on insert; the database keeps it in step when the workout's date changes (ON UPDATE CASCADE).
+    @Column(name = "workout_date", nullable = false, updatable = false)
+    private LocalDate workoutDate;
+
+    // Reference to the exercise (lazy)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "exercise_id", nullable = false)
     private Exercise exercise;
 
@@ -43,10 +49,20 @@ public class WorkoutExercise {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
+    // Optimistic lock: incremented on every update, which fails if the row changed since it was read.
+    // Sent to clients as the ETag; PUT takes it back in If-Match
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     // Set timestamps automatically
     @PrePersist
     protected void onCreate() {
         createdAt = updatedAt = LocalDateTime.now();
+        // Taken from the workout when it is loaded; callers linking the workout by reference set it themselves
+        if (workoutDate == null && workout != null) {
+            workoutDate = workout.getDate();
+        }
     }
 
     @PreUpdate
@@ -61,6 +77,9 @@ public class WorkoutExercise {
     public Workout getWorkout() { return workout; }
     public void setWorkout(Workout workout) { this.workout = workout; }
 
+    public LocalDate getWorkoutDate() { return workoutDate; }
+    public void setWorkoutDate(LocalDate workoutDate) { this.workoutDate = workoutDate; }
+
     public Exercise getExercise() { return exercise; }
     public void setExercise(Exercise exercise) { this.exercise = exercise; }
 
@@ -78,4 +97,7 @@ public class WorkoutExercise {
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 } 
\ No newline at end of file
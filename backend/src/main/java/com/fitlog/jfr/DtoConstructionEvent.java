@@ -0,0 +1,18 @@
+package com.fitlog.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Time spent building a response DTO from entities (may trigger lazy loads)
+@Name("com.fitlog.DtoConstruction")
+@Label("DTO Construction")
+@Category({"Fitlog", "Serialization"})
+public class DtoConstructionEvent extends RequestEvent {
+    @Label("DTO Type")
+    public String dtoType;
+
+    // Number of nested items (e.g. exercises in a workout)
+    @Label("Item Count")
+    public int itemCount;
+}
@@ -0,0 +1,79 @@
+package com.fitlog.jfr;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+// Wires the JFR events into repositories and JSON serialization
+@Configuration
+public class JfrConfig {
+
+    // Wrap every Spring Data repository proxy so each call emits a RepositoryCallEvent
+    @Bean
+    public static BeanPostProcessor jfrRepositoryEventPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                        (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                            repositoryCallInterceptor(repositoryInformation.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static MethodInterceptor repositoryCallInterceptor(String repository) {
+        return invocation -> {
+            RepositoryCallEvent event = new RepositoryCallEvent();
+            if (!event.isEnabled()) return invocation.proceed();
+            event.begin();
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                event.failed = true;
+                throw e;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.repository = repository;
+                    event.method = invocation.getMethod().getName();
+                    event.tagRequest();
+                    event.commit();
+                }
+            }
+        };
+    }
+
+    // Jackson converter that emits a JsonSerializationEvent for every response body it writes
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException, HttpMessageNotWritableException {
+                JsonSerializationEvent event = new JsonSerializationEvent();
+                event.begin();
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.bodyType = object != null ? object.getClass().getSimpleName() : "null";
+                        event.tagRequest();
+                        event.commit();
+                    }
+                }
+            }
+        };
+    }
+}
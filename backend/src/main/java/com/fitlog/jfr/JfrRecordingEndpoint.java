@@ -0,0 +1,80 @@
+package com.fitlog.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint to start and stop a Java Flight Recorder recording on demand,
+ * so latency spikes can be diagnosed in production without attaching a profiler.
+ *
+ * Available on the management port (GET/POST /actuator/jfr) and as a JMX operation
+ * (org.springframework.boot:type=Endpoint,name=Jfr):
+ *  - POST {"action": "start"} starts a recording with the JDK "profile" settings plus all Fitlog events
+ *  - POST {"action": "stop"} stops it and writes a .jfr file; the response contains its path
+ *  - GET returns the current state
+ * Recordings are capped at maxAgeMinutes (default 10) so a forgotten recording cannot grow without bound.
+ */
+@Component
+@Endpoint(id = "jfr")
+public class JfrRecordingEndpoint {
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private Recording recording;
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", recording == null ? "STOPPED" : recording.getState().name());
+        if (recording != null && recording.getStartTime() != null) {
+            status.put("startedAt", recording.getStartTime().toString());
+        }
+        return status;
+    }
+
+    @WriteOperation
+    public synchronized Map<String, Object> control(String action, @Nullable Integer maxAgeMinutes) throws IOException, ParseException {
+        if ("start".equals(action)) {
+            if (recording != null && recording.getState() == RecordingState.RUNNING) {
+                return Map.of("state", "RUNNING", "message", "A recording is already running.");
+            }
+            recording = new Recording(Configuration.getConfiguration("profile"));
+            recording.setName("fitlog-on-demand");
+            recording.enable(JwtValidationEvent.class);
+            recording.enable(PasswordHashEvent.class);
+            recording.enable(RepositoryCallEvent.class);
+            recording.enable(DtoConstructionEvent.class);
+            recording.enable(JsonSerializationEvent.class);
+            recording.setMaxAge(Duration.ofMinutes(maxAgeMinutes != null ? maxAgeMinutes : 10));
+            recording.setToDisk(true);
+            recording.start();
+            return Map.of("state", "RUNNING", "message", "Recording started.");
+        }
+        if ("stop".equals(action)) {
+            if (recording == null || recording.getState() != RecordingState.RUNNING) {
+                return Map.of("state", "STOPPED", "message", "No recording is running.");
+            }
+            Path file = Files.createTempFile("fitlog-" + LocalDateTime.now().format(FILE_TIMESTAMP) + "-", ".jfr");
+            recording.stop();
+            recording.dump(file);
+            recording.close();
+            recording = null;
+            return Map.of("state", "STOPPED", "message", "Recording stopped.", "file", file.toString());
+        }
+        return Map.of("error", "Unknown action, use start or stop.");
+    }
+}
@@ -0,0 +1,14 @@
+package com.fitlog.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Time spent writing a response body as JSON
+@Name("com.fitlog.JsonSerialization")
+@Label("JSON Serialization")
+@Category({"Fitlog", "Serialization"})
+public class JsonSerializationEvent extends RequestEvent {
+    @Label("Body Type")
+    public String bodyType;
+}
@@ -0,0 +1,14 @@
+package com.fitlog.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Time spent parsing and verifying a JWT (JwtUtil.validateToken)
+@Name("com.fitlog.JwtValidation")
+@Label("JWT Validation")
+@Category({"Fitlog", "Auth"})
+public class JwtValidationEvent extends RequestEvent {
+    @Label("Valid")
+    public boolean valid;
+}
@@ -0,0 +1,15 @@
+package com.fitlog.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Time spent in BCrypt, hashing a new password or checking one at login
+@Name("com.fitlog.PasswordHash")
+@Label("Password Hash")
+@Category({"Fitlog", "Auth"})
+public class PasswordHashEvent extends RequestEvent {
+    // "encode" or "matches"
+    @Label("Operation")
+    public String operation;
+}
@@ -0,0 +1,20 @@
+package com.fitlog.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Time spent in one Spring Data repository call (including the SQL it runs)
+@Name("com.fitlog.RepositoryCall")
+@Label("Repository Call")
+@Category({"Fitlog", "Persistence"})
+public class RepositoryCallEvent extends RequestEvent {
+    @Label("Repository")
+    public String repository;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,41 @@
+package com.fitlog.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Base class for Fitlog's Java Flight Recorder events.
+ * Every event carries the id of the authenticated user and the route of the request it ran in.
+ *
+ * Events cost next to nothing while no recording is running: begin()/commit() are no-ops and
+ * tagRequest() returns right away when the event is disabled.
+ */
+@Category("Fitlog")
+public abstract class RequestEvent extends Event {
+    // Request attribute holding the authenticated user's id (set by JwtAuthFilter)
+    public static final String USER_ID_ATTRIBUTE = "fitlog.userId";
+
+    @Label("User Id")
+    public String userId;
+
+    @Label("Route")
+    public String route;
+
+    // Fill userId and route from the current request, if any
+    public void tagRequest() {
+        if (!isEnabled()) return;
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) return;
+        HttpServletRequest request = attributes.getRequest();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // Before the handler is resolved (e.g. in filters) only the raw path is known
+        route = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        if (userId == null && request.getAttribute(USER_ID_ATTRIBUTE) != null) {
+            userId = request.getAttribute(USER_ID_ATTRIBUTE).toString();
+        }
+    }
+}
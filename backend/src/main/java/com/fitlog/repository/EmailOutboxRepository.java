@@ -0,0 +1,31 @@
+package com.fitlog.repository;
+
+import com.fitlog.entity.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// Repository for EmailOutbox entity
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, UUID> {
+    // Claim due pending emails for delivery. Must run inside a transaction: the rows stay locked
+    // until it ends, and rows already locked by another dispatcher are skipped instead of waited on.
+    @Query(value = "SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutbox> claimPending(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Number of emails still waiting to be sent
+    long countByStatus(EmailOutbox.Status status);
+
+    // Creation time of the oldest email with the given status, e.g. still waiting to be sent (null if none)
+    @Query("SELECT MIN(e.createdAt) FROM EmailOutbox e WHERE e.status = :status")
+    LocalDateTime findOldestCreatedAtByStatus(@Param("status") EmailOutbox.Status status);
+
+    // Earliest next attempt time of the emails with the given status that are due by now (null if none)
+    @Query("SELECT MIN(e.nextAttemptAt) FROM EmailOutbox e WHERE e.status = :status AND e.nextAttemptAt <= :now")
+    LocalDateTime findOldestDueNextAttemptAtByStatus(@Param("status") EmailOutbox.Status status, @Param("now") LocalDateTime now);
+}
@@ -1,8 +1,17 @@
 package com.fitlog.repository;
 
 import com.fitlog.entity.Exercise;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -10,5 +19,42 @@ import java.util.UUID;
 @Repository
 public interface ExerciseRepository extends JpaRepository<Exercise, UUID> {
     Optional<Exercise> findByName(String name);
+
+    // Read models for the GET endpoints: only the serialized columns are selected,
+    // and the creator is identified by its foreign key (no join with users)
+    String VIEW = "SELECT new com.fitlog.repository.ExerciseView(e.id, e.name, e.muscleGroups, e.notes, "
+            + "e.isPublic, e.isActive, e.createdAt, e.updatedAt, e.createdBy.id) FROM Exercise e ";
+
+    // All active exercises (admins)
+    @Query(VIEW + "WHERE e.isActive = true")
+    List<ExerciseView> findActiveViews();
+
+    // Active public exercises, the same for every user: served from the query cache (region "exercise-catalog"),
+    // which any change to the exercises table invalidates
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "exercise-catalog")
+    })
+    @Query(VIEW + "WHERE e.isActive = true AND e.isPublic = true")
+    List<ExerciseView> findPublicCatalog();
+
+    // A user's own active exercises that are not public (with the public catalog, all they may see)
+    @Query(VIEW + "WHERE e.isActive = true AND e.isPublic = false AND e.createdBy.id = :userId")
+    List<ExerciseView> findActivePrivateViewsOf(@Param("userId") UUID userId);
+
+    // A single exercise, active or not
+    @Query(VIEW + "WHERE e.id = :id")
+    Optional<ExerciseView> findViewById(@Param("id") UUID id);
+
+    // An exercise about to be changed (update, soft delete): read from the database rather than the
+    // second-level cache, which misses changes made by other instances, and locked until the transaction
+    // ends, so the write starts from the current row. The fresh row also replaces the cached copy.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints({
+            @QueryHint(name = SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, value = "BYPASS"),
+            @QueryHint(name = SpecHints.HINT_SPEC_CACHE_STORE_MODE, value = "REFRESH")
+    })
+    @Query("SELECT e FROM Exercise e WHERE e.id = :id")
+    Optional<Exercise> findForUpdateById(@Param("id") UUID id);
     // Add more custom queries as needed
 } 
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.fitlog.repository;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Read model of an exercise as returned by GET /exercises and GET /exercises/{id}.
+// Queried directly (ExerciseRepository), so no entity is loaded; the creator is only identified by id.
+public record ExerciseView(
+        UUID id,
+        String name,
+        String muscleGroups,
+        String notes,
+        @JsonProperty("public") boolean isPublic,
+        @JsonProperty("active") boolean isActive,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Creator createdBy) {
+
+    // The user who created the exercise
+    public record Creator(UUID id) {}
+
+    // Flat constructor for JPQL constructor expressions (they cannot nest)
+    public ExerciseView(UUID id, String name, String muscleGroups, String notes, Boolean isPublic, Boolean isActive,
+                        LocalDateTime createdAt, LocalDateTime updatedAt, UUID createdById) {
+        this(id, name, muscleGroups, notes, isPublic, isActive, createdAt, updatedAt, new Creator(createdById));
+    }
+}
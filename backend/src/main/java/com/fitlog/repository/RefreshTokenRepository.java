@@ -0,0 +1,38 @@
+package com.fitlog.repository;
+
+import com.fitlog.entity.RefreshToken;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+// Repository for RefreshToken entity
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+    // Find a refresh token by the hash of its value
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // Same, with the user the token belongs to (to issue new tokens for them)
+    @EntityGraph(attributePaths = "user")
+    Optional<RefreshToken> findWithUserByTokenHash(String tokenHash);
+
+    // Revoke a token if it is still active, atomically: returns 0 when another request revoked it first
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.id = :id AND t.revokedAt IS NULL")
+    int revokeIfActive(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    // Revoke every still-active refresh token of a user (used when token reuse is detected)
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.user.id = :userId AND t.revokedAt IS NULL")
+    int revokeAllForUser(@Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    // Remove tokens that can no longer be used
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :cutoff")
+    int deleteExpired(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,22 @@
+package com.fitlog.repository;
+
+import com.fitlog.entity.WorkoutExercise;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Multi-row writes for workout exercises, sent as JDBC batches (hibernate.jdbc.batch_size rows per round trip).
+// No ownership checks: callers must only pass rows of workouts the current user owns.
+public interface WorkoutExerciseBulkOperations {
+    // Insert all workout exercises in one transaction. The referenced workouts and exercises must exist, and every
+    // row must have its workoutDate set (the date of its workout), so the workouts can be passed by reference
+    // (getReferenceById) without one SELECT per row; otherwise nothing is written and an IllegalArgumentException
+    // (an InvalidDataAccessApiUsageException through the repository) is thrown. Returns the same objects with their
+    // generated ids; they are detached once written.
+    List<WorkoutExercise> insertAll(Collection<WorkoutExercise> workoutExercises);
+
+    // Replace the sets JSON of many workout exercises in one transaction; returns the number of rows updated
+    // (ids that do not exist are ignored)
+    int updateSets(Map<UUID, String> setsById);
+}
@@ -0,0 +1,78 @@
+package com.fitlog.repository;
+
+import com.fitlog.entity.WorkoutExercise;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Implementation of WorkoutExerciseBulkOperations (picked up by Spring Data as a repository fragment).
+// Rows are flushed and detached one batch at a time, so the persistence context (and the dirty checking of each
+// flush) holds at most one batch however many rows are written. The rows themselves all stay in memory: insertAll
+// takes them as one collection and returns them, so very large imports should be passed in chunks.
+class WorkoutExerciseBulkOperationsImpl implements WorkoutExerciseBulkOperations {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Rows per flush; matches the JDBC batch size so every flush is one batch per statement type
+    private final int batchSize;
+
+    WorkoutExerciseBulkOperationsImpl(@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @Transactional
+    public List<WorkoutExercise> insertAll(Collection<WorkoutExercise> workoutExercises) {
+        // Without it, @PrePersist would read the date from the workout, loading each workout passed by reference
+        for (WorkoutExercise workoutExercise : workoutExercises) {
+            if (workoutExercise.getWorkoutDate() == null) {
+                throw new IllegalArgumentException("workoutDate must be set on every workout exercise to insert");
+            }
+        }
+        List<WorkoutExercise> inserted = new ArrayList<>(workoutExercises.size());
+        int flushed = 0;
+        for (WorkoutExercise workoutExercise : workoutExercises) {
+            // Ids are generated in memory (time-ordered UUIDs), so persist does not hit the database
+            entityManager.persist(workoutExercise);
+            inserted.add(workoutExercise);
+            if (inserted.size() - flushed == batchSize) {
+                flushed = flushAndDetach(inserted, flushed);
+            }
+        }
+        flushAndDetach(inserted, flushed);
+        return inserted;
+    }
+
+    @Override
+    @Transactional
+    public int updateSets(Map<UUID, String> setsById) {
+        List<UUID> ids = new ArrayList<>(setsById.keySet());
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<WorkoutExercise> rows = entityManager
+                    .createQuery("SELECT we FROM WorkoutExercise we WHERE we.id IN :ids", WorkoutExercise.class)
+                    .setParameter("ids", ids.subList(from, Math.min(from + batchSize, ids.size())))
+                    .getResultList();
+            for (WorkoutExercise row : rows) {
+                row.setSets(setsById.get(row.getId()));
+            }
+            updated += flushAndDetach(rows, 0);
+        }
+        return updated;
+    }
+
+    // Write the pending rows (one JDBC batch) and stop tracking rows[from..]; returns rows.size()
+    private int flushAndDetach(List<WorkoutExercise> rows, int from) {
+        entityManager.flush();
+        for (int i = from; i < rows.size(); i++) {
+            entityManager.detach(rows.get(i));
+        }
+        return rows.size();
+    }
+}
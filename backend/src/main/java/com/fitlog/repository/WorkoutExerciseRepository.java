@@ -1,15 +1,58 @@
 package com.fitlog.repository;
 
 import com.fitlog.entity.WorkoutExercise;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-// Repository for WorkoutExercise entity
+// Repository for WorkoutExercise entity (bulk writes: see WorkoutExerciseBulkOperations)
 @Repository
-public interface WorkoutExerciseRepository extends JpaRepository<WorkoutExercise, UUID> {
-    // Find all workout exercises by workout ID
-    List<WorkoutExercise> findByWorkoutId(UUID workoutId);
+public interface WorkoutExerciseRepository extends JpaRepository<WorkoutExercise, UUID>, WorkoutExerciseBulkOperations {
+    // Fetch plans: associations are lazy, so each query names the associations its callers read.
+    // The entity graph joins them into the same query instead of one select per row.
+    // Partitioning: the table is partitioned by workout date, so the queries by workout also take
+    // the date (range); only the partitions of those months are read.
+
+    // Find all workout exercises of a workout, with their exercise (for the workout DTOs)
+    @EntityGraph(attributePaths = "exercise")
+    List<WorkoutExercise> findByWorkoutIdAndWorkoutDate(UUID workoutId, LocalDate workoutDate);
+
+    // Find the workout exercises of several workouts dated from..to in a single query, with their exercise
+    @EntityGraph(attributePaths = "exercise")
+    List<WorkoutExercise> findByWorkoutIdInAndWorkoutDateBetween(Collection<UUID> workoutIds, LocalDate from, LocalDate to);
+
+    // Ownership-scoped queries: a workout exercise belongs to the owner of its workout.
+    // Like the lookups by id of WorkoutRepository, these probe every attached partition of both tables,
+    // as neither the id of a workout exercise nor the user says which month the row is in.
+    Optional<WorkoutExercise> findByIdAndWorkoutUserId(UUID id, UUID userId);
+
+    // Read models for the GET endpoints: the serialized columns of the workout exercise and its exercise, in one join
+    String VIEW = "SELECT new com.fitlog.repository.WorkoutExerciseView(we.id, we.workout.id, we.position, we.sets, "
+            + "we.notes, we.createdAt, we.updatedAt, we.version, e.id, e.name, e.muscleGroups, e.isPublic, e.isActive, e.notes) "
+            + "FROM WorkoutExercise we JOIN we.exercise e ";
+
+    // The exercises of a workout, in workout order
+    @Query(VIEW + "WHERE we.workout.id = :workoutId AND we.workoutDate = :workoutDate ORDER BY we.position")
+    List<WorkoutExerciseView> findViewsByWorkoutId(@Param("workoutId") UUID workoutId, @Param("workoutDate") LocalDate workoutDate);
+
+    // A single workout exercise, if its workout belongs to the user
+    @Query(VIEW + "WHERE we.id = :id AND we.workout.user.id = :userId")
+    Optional<WorkoutExerciseView> findViewByIdAndWorkoutUserId(@Param("id") UUID id, @Param("userId") UUID userId);
+
+    // Delete a workout exercise owned by the user in a single statement; returns the number of rows deleted
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM WorkoutExercise we WHERE we.id = :id AND we.workout.id IN "
+            + "(SELECT w.id FROM Workout w WHERE w.user.id = :userId)")
+    int deleteByIdAndWorkoutUserId(@Param("id") UUID id, @Param("userId") UUID userId);
     // Add more custom queries as needed
-} 
\ No newline at end of file
+}
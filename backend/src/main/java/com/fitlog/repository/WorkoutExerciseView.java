@@ -0,0 +1,38 @@
+package com.fitlog.repository;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Read model of a workout exercise as returned by GET /workout_exercises/by_workout/{id} and GET /workout_exercises/{id}.
+// Queried directly (WorkoutExerciseRepository) with the exercise columns joined in; the workout is only identified by id.
+public record WorkoutExerciseView(
+        UUID id,
+        UUID workoutId,
+        int position,
+        String sets,
+        String notes,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        // Optimistic lock version, the ETag for conditional updates (If-Match)
+        long version,
+        ExerciseSummary exercise) {
+
+    // The exercise performed (same fields as in the workout DTOs)
+    public record ExerciseSummary(
+            UUID id,
+            String name,
+            String muscleGroups,
+            @JsonProperty("isPublic") boolean isPublic,
+            @JsonProperty("isActive") boolean isActive,
+            String notes) {}
+
+    // Flat constructor for JPQL constructor expressions (they cannot nest)
+    public WorkoutExerciseView(UUID id, UUID workoutId, Integer position, String sets, String notes,
+                               LocalDateTime createdAt, LocalDateTime updatedAt, Long version,
+                               UUID exerciseId, String exerciseName, String exerciseMuscleGroups,
+                               Boolean exercisePublic, Boolean exerciseActive, String exerciseNotes) {
+        this(id, workoutId, position, sets, notes, createdAt, updatedAt, version,
+                new ExerciseSummary(exerciseId, exerciseName, exerciseMuscleGroups, exercisePublic, exerciseActive, exerciseNotes));
+    }
+}
@@ -2,7 +2,11 @@ package com.fitlog.repository;
 
 import com.fitlog.entity.Workout;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.UUID;
 import java.time.LocalDate;
@@ -11,9 +15,28 @@ import java.util.Optional;
 // Repository for Workout entity
 @Repository
 public interface WorkoutRepository extends JpaRepository<Workout, UUID> {
-    // Find all workouts by user ID
+    // Find all workouts by user ID (the owner is not loaded: callers already know who it is)
     List<Workout> findByUserId(UUID userId);
+    // A user's workouts in a date range (inclusive); only the partitions of those months are read
+    List<Workout> findByUserIdAndDateBetween(UUID userId, LocalDate from, LocalDate to);
     // Find a workout by user and date
     Optional<Workout> findByUserIdAndDate(UUID userId, LocalDate date);
+
+    // Ownership-scoped queries: the owner check is part of the WHERE clause,
+    // so nothing is returned (or deleted) unless the workout belongs to the user.
+    // Partitioning: the API names workouts by id alone, which does not say which month's partition holds
+    // the row, so these probe the primary key index (id, date) of every attached partition: one index lookup
+    // per month (about 40 for three years of history plus the months ahead) instead of one. Small next to
+    // a request, but it grows with the history kept attached; partitions.detach-after-months bounds it.
+    Optional<Workout> findByIdAndUserId(UUID id, UUID userId);
+    // Date of a workout owned by the user, the partition key for queries on its exercises
+    @Query("SELECT w.date FROM Workout w WHERE w.id = :id AND w.user.id = :userId")
+    Optional<LocalDate> findDateByIdAndUserId(@Param("id") UUID id, @Param("userId") UUID userId);
+
+    // Delete a workout owned by the user in a single statement; returns the number of rows deleted
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Workout w WHERE w.id = :id AND w.user.id = :userId")
+    int deleteByIdAndUserId(@Param("id") UUID id, @Param("userId") UUID userId);
     // Add more custom queries as needed
-} 
\ No newline at end of file
+}
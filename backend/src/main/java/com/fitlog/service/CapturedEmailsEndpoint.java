@@ -0,0 +1,29 @@
+package com.fitlog.service;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.util.List;
+
+/**
+ * Actuator endpoint listing the emails kept by CapturingEmailTransport for one recipient
+ * (GET /actuator/capturedemails/{recipient} on the management port).
+ * Lets the load generator complete signup with the verification code. Only exists with email.transport=capture.
+ */
+@Component
+@ConditionalOnProperty(name = "email.transport", havingValue = "capture")
+@Endpoint(id = "capturedemails")
+public class CapturedEmailsEndpoint {
+    private final CapturingEmailTransport capturingEmailTransport;
+
+    public CapturedEmailsEndpoint(CapturingEmailTransport capturingEmailTransport) {
+        this.capturingEmailTransport = capturingEmailTransport;
+    }
+
+    @ReadOperation
+    public List<EmailMessage> capturedFor(@Selector String recipient) {
+        return capturingEmailTransport.getCapturedFor(recipient);
+    }
+}
@@ -0,0 +1,48 @@
+package com.fitlog.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * EmailTransport that keeps emails in memory instead of sending them.
+ * Used by the tests (to read verification codes) and for load runs that must not reach a real provider.
+ * Only the most recent emails are kept, so a long load run does not grow the heap without bound.
+ */
+@Component
+@ConditionalOnProperty(name = "email.transport", havingValue = "capture")
+public class CapturingEmailTransport implements EmailTransport {
+    private static final int MAX_CAPTURED = 10_000;
+
+    private final ConcurrentLinkedQueue<EmailMessage> captured = new ConcurrentLinkedQueue<>();
+    // Tracked separately because ConcurrentLinkedQueue.size() walks the whole queue
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Override
+    public String send(EmailMessage message) {
+        captured.add(message);
+        if (size.incrementAndGet() > MAX_CAPTURED && captured.poll() != null) {
+            size.decrementAndGet();
+        }
+        return UUID.randomUUID().toString();
+    }
+
+    // Emails captured so far, oldest first
+    public List<EmailMessage> getCaptured() {
+        return List.copyOf(captured);
+    }
+
+    // Emails captured for one recipient, oldest first
+    public List<EmailMessage> getCapturedFor(String to) {
+        return captured.stream().filter(message -> message.to().equals(to)).toList();
+    }
+
+    public void clear() {
+        while (captured.poll() != null) {
+            size.decrementAndGet();
+        }
+    }
+}
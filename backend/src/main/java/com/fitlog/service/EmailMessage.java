@@ -0,0 +1,6 @@
+package com.fitlog.service;
+
+/**
+ * A plain text email ready to be handed to an EmailTransport.
+ */
+public record EmailMessage(String to, String subject, String body) {}
@@ -0,0 +1,229 @@
+package com.fitlog.service;
+
+import com.fitlog.entity.EmailOutbox;
+import com.fitlog.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background sender for the email outbox.
+ *
+ * Each run claims a batch of due PENDING rows with SELECT ... FOR UPDATE SKIP LOCKED, sends them and
+ * records the outcome in the same transaction. Several instances can run at once: a row locked by one
+ * instance is skipped by the others. Failed sends are retried with exponential backoff and marked
+ * FAILED after the maximum number of attempts (or right away if the transport reports a permanent error).
+ *
+ * Sending is paced by a token bucket matched to this instance's share of the provider's send quota. The quota
+ * (email.send-rate-per-second) is per account, so it is divided evenly between the instances running the
+ * dispatcher (email.dispatcher-instances, the most that run at once); together they stay under it.
+ * Only as many rows as there are tokens are claimed, so a burst of signups is drained at the quota
+ * rate instead of turning into throttling errors, and no transaction waits for tokens while holding locks.
+ * If the provider still throttles, the bucket is paused and the unsent rows stay pending untouched.
+ *
+ * Metrics: email.outbox.pending, email.outbox.lag (age of the oldest pending email, seconds) and
+ * email.outbox.due.lag (how long the oldest due email has been waiting for a run to send it, seconds)
+ * gauges, and an email.outbox.sent counter tagged with the outcome. The lag includes retry backoff, so it
+ * grows during a provider outage; the due lag only grows when the dispatcher falls behind.
+ */
+@Component
+public class EmailOutboxDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailTransport emailTransport;
+    private final TransactionTemplate transactionTemplate;
+    private final TokenBucket sendRateLimiter;
+
+    // Metrics, refreshed on every run so scraping never queries the database
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final AtomicLong dueLagSeconds = new AtomicLong();
+    // When the last run finished (epoch millis); lets readiness detect a stalled dispatcher
+    private final AtomicLong lastRunFinishedAt = new AtomicLong(System.currentTimeMillis());
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Counter throttledCounter;
+
+    // Maximum number of rows claimed per transaction
+    @Value("${email.outbox.batch-size:20}")
+    private int batchSize;
+
+    // Attempts before an email is given up on
+    @Value("${email.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    // Delay before the first retry; doubled after every further failure
+    @Value("${email.outbox.initial-backoff:PT30S}")
+    private Duration initialBackoff;
+
+    // Upper bound for the retry delay
+    @Value("${email.outbox.max-backoff:PT1H}")
+    private Duration maxBackoff;
+
+    // How long one run may keep draining a backlog before yielding the scheduler thread
+    @Value("${email.outbox.max-run-time:PT30S}")
+    private Duration maxRunTime;
+
+    // How long to stop sending after the provider reports throttling
+    @Value("${email.throttle-pause:PT2S}")
+    private Duration throttlePause;
+
+    public EmailOutboxDispatcher(
+            EmailOutboxRepository emailOutboxRepository,
+            EmailTransport emailTransport,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            // Provider send quota of the whole account (SES default for production accounts: 14 emails per second)
+            @Value("${email.send-rate-per-second:14}") double sendRatePerSecond,
+            // Number of instances sharing the quota
+            @Value("${email.dispatcher-instances:1}") int dispatcherInstances,
+            // Largest burst this instance sends at once; defaults to one second worth of its share
+            @Value("${email.send-burst:0}") int sendBurst) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailTransport = emailTransport;
+        this.transactionTemplate = transactionTemplate;
+        double instanceRate = sendRatePerSecond / Math.max(1, dispatcherInstances);
+        this.sendRateLimiter = new TokenBucket(instanceRate, sendBurst > 0 ? sendBurst : Math.max(1, Math.floor(instanceRate)));
+        Gauge.builder("email.outbox.pending", pendingCount, AtomicLong::get)
+            .description("Emails waiting to be sent")
+            .register(meterRegistry);
+        Gauge.builder("email.outbox.lag", lagSeconds, AtomicLong::get)
+            .description("Age of the oldest email waiting to be sent")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        Gauge.builder("email.outbox.due.lag", dueLagSeconds, AtomicLong::get)
+            .description("How long the oldest due email has been waiting to be sent")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        this.sentCounter = meterRegistry.counter("email.outbox.sent", "outcome", "sent");
+        this.retriedCounter = meterRegistry.counter("email.outbox.sent", "outcome", "retry");
+        this.failedCounter = meterRegistry.counter("email.outbox.sent", "outcome", "failed");
+        this.throttledCounter = meterRegistry.counter("email.outbox.sent", "outcome", "throttled");
+    }
+
+    // Outcome of one batch
+    private record BatchResult(int claimed, int attempted, boolean throttled) {}
+
+    // Poll for due emails; keep draining while full batches come back
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:2000}")
+    public void dispatchPending() {
+        long deadline = System.nanoTime() + maxRunTime.toNanos();
+        try {
+            while (System.nanoTime() - deadline < 0) {
+                int permits = sendRateLimiter.tryAcquireUpTo(batchSize);
+                if (permits == 0) {
+                    // Out of quota: wait for the next token, outside any transaction
+                    Thread.sleep(Math.max(1, sendRateLimiter.millisUntilAvailable()));
+                    continue;
+                }
+                BatchResult result = transactionTemplate.execute(status -> dispatchBatch(permits));
+                sendRateLimiter.refund(permits - result.attempted());
+                if (result.throttled()) {
+                    sendRateLimiter.pause(throttlePause.toMillis());
+                    break;
+                }
+                if (result.claimed() < permits) break; // Nothing more is due
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Email outbox dispatch failed: {}", e.getMessage());
+        } finally {
+            refreshBacklogMetrics();
+            lastRunFinishedAt.set(System.currentTimeMillis());
+        }
+    }
+
+    // Claim, send and record one batch; runs inside a transaction so the row locks are held until commit
+    private BatchResult dispatchBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> batch = emailOutboxRepository.claimPending(now, limit);
+        if (batch.isEmpty()) return new BatchResult(0, 0, false);
+        List<EmailMessage> messages = batch.stream()
+            .map(email -> new EmailMessage(email.getRecipient(), email.getSubject(), email.getBody()))
+            .toList();
+        List<EmailTransport.SendResult> results = emailTransport.sendBatch(messages);
+        boolean throttled = false;
+        for (int i = 0; i < results.size(); i++) {
+            EmailOutbox email = batch.get(i);
+            EmailTransport.SendResult result = results.get(i);
+            if (result.error() == null) {
+                email.setAttempts(email.getAttempts() + 1);
+                email.setStatus(EmailOutbox.Status.SENT);
+                email.setSentAt(LocalDateTime.now());
+                email.setLastError(null);
+                sentCounter.increment();
+                log.info("Email {} sent to {}, messageId: {}", email.getId(), email.getRecipient(), result.messageId());
+            } else if (result.error().isThrottled()) {
+                // Not the message's fault: leave it as it was, it goes out once the quota allows
+                throttled = true;
+                throttledCounter.increment();
+            } else {
+                email.setAttempts(email.getAttempts() + 1);
+                recordFailure(email, result.error(), now);
+            }
+        }
+        // Changes to the managed rows are flushed when the transaction commits;
+        // rows the transport did not get to stay pending and unchanged
+        return new BatchResult(batch.size(), results.size(), throttled || results.size() < batch.size());
+    }
+
+    private void recordFailure(EmailOutbox email, EmailTransportException e, LocalDateTime now) {
+        String message = e.getMessage();
+        email.setLastError(message != null && message.length() > 500 ? message.substring(0, 500) : message);
+        if (!e.isRetryable() || email.getAttempts() >= maxAttempts) {
+            email.setStatus(EmailOutbox.Status.FAILED);
+            failedCounter.increment();
+            log.error("Email {} to {} failed permanently after {} attempts: {}", email.getId(), email.getRecipient(), email.getAttempts(), message);
+            return;
+        }
+        email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+        retriedCounter.increment();
+        log.warn("Email {} to {} failed (attempt {}), retrying at {}: {}", email.getId(), email.getRecipient(), email.getAttempts(), email.getNextAttemptAt(), message);
+    }
+
+    // initialBackoff * 2^(attempts - 1), capped at maxBackoff
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private void refreshBacklogMetrics() {
+        try {
+            pendingCount.set(emailOutboxRepository.countByStatus(EmailOutbox.Status.PENDING));
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime oldest = emailOutboxRepository.findOldestCreatedAtByStatus(EmailOutbox.Status.PENDING);
+            lagSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, now).getSeconds()));
+            LocalDateTime oldestDue = emailOutboxRepository.findOldestDueNextAttemptAtByStatus(EmailOutbox.Status.PENDING, now);
+            dueLagSeconds.set(oldestDue == null ? 0 : Math.max(0, Duration.between(oldestDue, now).getSeconds()));
+        } catch (Exception e) {
+            log.debug("Could not refresh email outbox metrics: {}", e.getMessage());
+        }
+    }
+
+    // Emails waiting to be sent, as of the last run
+    public long getPendingCount() { return pendingCount.get(); }
+
+    // Age in seconds of the oldest email waiting to be sent, as of the last run
+    public long getLagSeconds() { return lagSeconds.get(); }
+
+    // How long in seconds the oldest due email had been due, as of the last run (0 if none is due).
+    // Unlike the lag, emails waiting for a retry do not count until their next attempt is due.
+    public long getDueLagSeconds() { return dueLagSeconds.get(); }
+
+    // When the last run finished (or the dispatcher was created, before the first run)
+    public Instant getLastRunFinishedAt() { return Instant.ofEpochMilli(lastRunFinishedAt.get()); }
+}
@@ -1,77 +1,48 @@
 package com.fitlog.service;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.fitlog.entity.EmailOutbox;
+import com.fitlog.repository.EmailOutboxRepository;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.ses.SesClient;
-import software.amazon.awssdk.services.ses.model.Destination;
-import software.amazon.awssdk.services.ses.model.SendEmailRequest;
-import software.amazon.awssdk.services.ses.model.SendEmailResponse;
-import software.amazon.awssdk.services.ses.model.Content;
-import software.amazon.awssdk.services.ses.model.Body;
-import software.amazon.awssdk.services.ses.model.Message;
-import software.amazon.awssdk.services.ses.model.SesException;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.core.env.Environment;
 
 /**
- * Service for sending emails (e.g., verification codes) using Amazon SES.
+ * Service for sending emails (e.g., verification codes).
  * For beginners: This is where you put the logic to send emails.
+ *
+ * Emails are not sent while handling a request. They are queued in the email_outbox table
+ * (in the caller's transaction) and delivered in the background by EmailOutboxDispatcher
+ * through the configured EmailTransport (Amazon SES by default).
  */
 @Service
 public class EmailService {
     private final Environment env;
+    private final EmailOutboxRepository emailOutboxRepository;
 
-    public EmailService(Environment env) {
+    public EmailService(Environment env, EmailOutboxRepository emailOutboxRepository) {
         this.env = env;
+        this.emailOutboxRepository = emailOutboxRepository;
     }
 
-    // Sender email address (must be verified in SES)
-    @Value("${SES_SENDER_EMAIL:no-reply@fitlogapp.com}")
-    private String senderEmail;
-
-    // AWS Region (e.g., us-east-1)
-    @Value("${SES_REGION:us-east-1}")
-    private String awsRegion;
-
     /**
-     * Sends a verification email with the code to the given email address using Amazon SES.
+     * Queues a verification email with the code for the given email address.
+     * Joins the caller's transaction, so the email is only sent if that transaction commits.
      * @param toEmail The recipient's email address
      * @param code The verification code to send
      */
-    public void sendVerificationEmail(String toEmail, String code) {
-                // --- EMAIL OVERRIDE LOGIC FOR DEV ---
+    @Transactional
+    public void queueVerificationEmail(String toEmail, String code) {
+        // --- EMAIL OVERRIDE LOGIC FOR DEV ---
         // If the verification-email-override property is set, send a notification email to that address instead of the user's email.
         String overrideEmail = env.getProperty("verification-email-override");
         if (overrideEmail != null && !overrideEmail.isBlank()) {
             toEmail = overrideEmail;
         }
 
-        try {
-            SesClient sesClient = SesClient.builder()
-                .region(Region.of(awsRegion))
-                .credentialsProvider(EnvironmentVariableCredentialsProvider.create())
-                .build();
-
-            String subjectText = "Fitlog Email Verification";
-            String bodyText = "Your Fitlog verification code is: " + code + "\n\nThis code will expire in 1 hour.";
-
-            SendEmailRequest emailRequest = SendEmailRequest.builder()
-                .destination(Destination.builder().toAddresses(toEmail).build())
-                .message(Message.builder()
-                    .subject(Content.builder().data(subjectText).build())
-                    .body(Body.builder().text(Content.builder().data(bodyText).build()).build())
-                    .build())
-                .source(senderEmail)
-                .build();
-
-            SendEmailResponse response = sesClient.sendEmail(emailRequest);
-            System.out.println("[EmailService] SES email sent to " + toEmail + ", messageId: " + response.messageId());
-        } catch (SesException e) {
-            System.err.println("[EmailService] SES error: " + e.awsErrorDetails().errorMessage());
-        } catch (Exception e) {
-            System.err.println("[EmailService] General error sending SES email: " + e.getMessage());
-        }
+        EmailOutbox email = new EmailOutbox();
+        email.setRecipient(toEmail);
+        email.setSubject("Fitlog Email Verification");
+        email.setBody("Your Fitlog verification code is: " + code + "\n\nThis code will expire in 1 hour.");
+        emailOutboxRepository.save(email);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,41 @@
+package com.fitlog.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends emails through a provider. The implementation is chosen with the email.transport property:
+ *  - ses (default): Amazon SES, see SesEmailTransport
+ *  - smtp: any SMTP server configured with the spring.mail.* properties, see SmtpEmailTransport
+ *  - capture: keeps emails in memory instead of sending them (tests and load runs), see CapturingEmailTransport
+ * Implementations are singletons and must be safe to call from several threads.
+ */
+public interface EmailTransport {
+    // Outcome of one message of a batch: the provider's message id, or the error
+    record SendResult(String messageId, EmailTransportException error) {}
+
+    /**
+     * Sends one email.
+     * @return The provider's message id
+     * @throws EmailTransportException if the email could not be sent
+     */
+    String send(EmailMessage message);
+
+    /**
+     * Sends several emails, using the provider's bulk mechanism where it has one.
+     * Returns one result per message, in order. If the provider starts throttling, sending stops and
+     * the result list is shorter than the input: the remaining messages were not attempted.
+     */
+    default List<SendResult> sendBatch(List<EmailMessage> messages) {
+        List<SendResult> results = new ArrayList<>(messages.size());
+        for (EmailMessage message : messages) {
+            try {
+                results.add(new SendResult(send(message), null));
+            } catch (EmailTransportException e) {
+                results.add(new SendResult(null, e));
+                if (e.isThrottled()) break;
+            }
+        }
+        return results;
+    }
+}
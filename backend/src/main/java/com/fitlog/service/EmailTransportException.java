@@ -0,0 +1,26 @@
+package com.fitlog.service;
+
+/**
+ * Thrown by an EmailTransport when a message could not be sent.
+ * Retryable failures (throttling, timeouts, provider outages) are tried again later;
+ * permanent ones (e.g. a rejected address) are not. Throttled failures mean the provider's
+ * send quota was exceeded: the message itself is fine and sending should slow down.
+ */
+public class EmailTransportException extends RuntimeException {
+    private final boolean retryable;
+    private final boolean throttled;
+
+    public EmailTransportException(String message, boolean retryable, Throwable cause) {
+        this(message, retryable, false, cause);
+    }
+
+    public EmailTransportException(String message, boolean retryable, boolean throttled, Throwable cause) {
+        super(message, cause);
+        this.retryable = retryable || throttled;
+        this.throttled = throttled;
+    }
+
+    public boolean isRetryable() { return retryable; }
+
+    public boolean isThrottled() { return throttled; }
+}
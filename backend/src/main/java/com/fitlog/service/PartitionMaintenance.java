@@ -0,0 +1,119 @@
+package com.fitlog.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Maintains the monthly partitions of workouts and workout_exercises (see the V4 migration).
+ *
+ * Every run, on startup and then periodically:
+ * - creates the partitions of the current month and the next partitions.months-ahead months, so new
+ *   workouts never land in the default partition;
+ * - freezes partitions older than partitions.freeze-after-months (VACUUM FREEZE, ANALYZE), once and again
+ *   only if they were modified since, at most partitions.max-freezes-per-run per run; the rest wait for the
+ *   next runs. Frozen pages are skipped by later vacuums, so vacuum work follows recent activity instead of
+ *   total history. One instance freezes at a time: the others skip the step while it holds the lock;
+ * - if partitions.detach-after-months is set, detaches partitions older than that. Detached months stay in
+ *   the database as standalone tables to archive or drop, but the application no longer sees them.
+ *
+ * PostgreSQL only; disabled in tests (partitions.maintenance.enabled=false).
+ */
+@Component
+@ConditionalOnProperty(name = "partitions.maintenance.enabled", havingValue = "true", matchIfMissing = true)
+public class PartitionMaintenance {
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenance.class);
+
+    // Monthly partitions that cover only months before the cutoff and were not vacuumed (by hand) since
+    // their last change, oldest month first. last_vacuum is only set by explicit VACUUM, not by autovacuum.
+    private static final String FREEZE_CANDIDATES = "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_stat_user_tables s ON s.relid = c.oid "
+            + "WHERE i.inhparent IN ('workouts'::regclass, 'workout_exercises'::regclass) "
+            + "AND c.relname ~ '_p[0-9]{4}_[0-9]{2}$' AND to_date(right(c.relname, 7), 'YYYY_MM') < ? "
+            + "AND (s.last_vacuum IS NULL OR s.n_mod_since_analyze > 0 OR s.n_dead_tup > 0) "
+            + "ORDER BY right(c.relname, 7), c.relname LIMIT ?";
+
+    // Session-level, since VACUUM runs outside transactions. A key of its own: the partition functions take
+    // hashtext('fitlog_partitions') per transaction, and creating partitions must not wait for a long freeze.
+    private static final String FREEZE_LOCK = "hashtext('fitlog_partitions_freeze')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Months after the current one that always have partitions
+    @Value("${partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    // Partitions this many months in the past get frozen
+    @Value("${partitions.freeze-after-months:3}")
+    private int freezeAfterMonths;
+
+    // Partitions this many months in the past get detached; 0 keeps all history attached
+    @Value("${partitions.detach-after-months:0}")
+    private int detachAfterMonths;
+
+    // Partitions frozen per run at most, so one run never vacuums the whole history at once
+    @Value("${partitions.max-freezes-per-run:4}")
+    private int maxFreezesPerRun;
+
+    public PartitionMaintenance(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${partitions.maintenance-interval-ms:21600000}")
+    public void maintain() {
+        LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+        try {
+            Integer created = jdbcTemplate.queryForObject("SELECT fitlog_create_partitions(?, ?)", Integer.class,
+                    thisMonth, thisMonth.plusMonths(monthsAhead));
+            if (created != null && created > 0) {
+                log.info("Created partitions for {} month(s)", created);
+            }
+            if (detachAfterMonths > 0) {
+                Integer detached = jdbcTemplate.queryForObject("SELECT fitlog_detach_partitions(?)", Integer.class,
+                        thisMonth.minusMonths(detachAfterMonths));
+                if (detached != null && detached > 0) {
+                    log.info("Detached partitions of {} month(s) before {}", detached, thisMonth.minusMonths(detachAfterMonths));
+                }
+            }
+            List<String> frozen = freeze(thisMonth.minusMonths(freezeAfterMonths));
+            if (frozen == null) {
+                log.debug("Partitions are being frozen by another instance");
+            } else if (!frozen.isEmpty()) {
+                log.info("Froze partitions {}", frozen);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    // Freezes up to maxFreezesPerRun partitions before the cutoff and returns them, or null if another instance
+    // holds the lock. The lock, the vacuums and the unlock share one connection, outside a transaction (VACUUM
+    // cannot run in one).
+    private List<String> freeze(LocalDate cutoff) {
+        return jdbcTemplate.execute((ConnectionCallback<List<String>>) connection -> {
+            JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            if (!Boolean.TRUE.equals(session.queryForObject("SELECT pg_try_advisory_lock(" + FREEZE_LOCK + ")", Boolean.class))) {
+                return null;
+            }
+            try {
+                List<String> toFreeze = session.queryForList(FREEZE_CANDIDATES, String.class, cutoff, maxFreezesPerRun);
+                for (String partition : toFreeze) {
+                    // The names come from the pattern above
+                    session.execute("VACUUM (FREEZE, ANALYZE) \"" + partition + "\"");
+                }
+                return toFreeze;
+            } finally {
+                session.queryForObject("SELECT pg_advisory_unlock(" + FREEZE_LOCK + ")", Boolean.class);
+            }
+        });
+    }
+}
@@ -0,0 +1,133 @@
+package com.fitlog.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Readiness of this instance to take traffic: database reachable, connection pool not saturated,
+ * this instance's email outbox dispatcher not stalled.
+ *
+ * The outbox backlog (pending emails, lag) is shared by all instances: it is reported in the details and as
+ * the email.outbox.* metrics for alerting, but does not make an instance unready. Sustained throttling
+ * or a provider outage would otherwise take every instance out of the load balancer at once.
+ *
+ * The result is cached for health.readiness.cache-ttl, so load balancer probes at high frequency
+ * cost at most one database ping per interval.
+ */
+@Component
+public class ReadinessCheck {
+    // Result of one evaluation: overall readiness and the details of each check
+    public record Result(boolean ready, Map<String, Object> checks, Instant checkedAt) {}
+
+    private final DataSource dataSource;
+    private final EmailOutboxDispatcher emailOutboxDispatcher;
+
+    // How long a result is reused
+    @Value("${health.readiness.cache-ttl:PT0.3S}")
+    private Duration cacheTtl;
+
+    // Timeout of the database ping
+    @Value("${health.readiness.db-timeout-seconds:1}")
+    private int dbTimeoutSeconds;
+
+    // Not ready when this many requests are waiting for a database connection
+    @Value("${health.readiness.max-pending-connections:5}")
+    private int maxPendingConnections;
+
+    // Not ready when this instance's dispatcher has not finished a run for this long (stalled)
+    @Value("${health.readiness.max-dispatcher-idle:PT5M}")
+    private Duration maxDispatcherIdle;
+
+    private volatile Result cached;
+    private volatile long cachedAtNanos;
+
+    public ReadinessCheck(DataSource dataSource, EmailOutboxDispatcher emailOutboxDispatcher) {
+        this.dataSource = dataSource;
+        this.emailOutboxDispatcher = emailOutboxDispatcher;
+    }
+
+    // Cached readiness; only one thread re-evaluates when the cached result has expired
+    public Result check() {
+        Result result = cached;
+        if (result != null && System.nanoTime() - cachedAtNanos < cacheTtl.toNanos()) return result;
+        synchronized (this) {
+            if (cached != null && System.nanoTime() - cachedAtNanos < cacheTtl.toNanos()) return cached;
+            result = evaluate();
+            cached = result;
+            cachedAtNanos = System.nanoTime();
+            return result;
+        }
+    }
+
+    private Result evaluate() {
+        Map<String, Object> checks = new LinkedHashMap<>();
+        boolean poolOk = checkPool(checks);
+        // With a saturated pool the ping would wait for a connection; report the pool instead
+        boolean databaseOk = poolOk && checkDatabase(checks);
+        boolean outboxOk = checkEmailOutbox(checks);
+        return new Result(poolOk && databaseOk && outboxOk, checks, Instant.now());
+    }
+
+    private boolean checkPool(Map<String, Object> checks) {
+        HikariPoolMXBean pool = hikariPool();
+        if (pool == null) {
+            checks.put("pool", Map.of("status", "UNKNOWN"));
+            return true;
+        }
+        int pending = pool.getThreadsAwaitingConnection();
+        boolean ok = pending < maxPendingConnections;
+        checks.put("pool", Map.of(
+            "status", ok ? "UP" : "SATURATED",
+            "active", pool.getActiveConnections(),
+            "idle", pool.getIdleConnections(),
+            "total", pool.getTotalConnections(),
+            "pending", pending));
+        return ok;
+    }
+
+    private boolean checkDatabase(Map<String, Object> checks) {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean ok = connection.isValid(dbTimeoutSeconds);
+            checks.put("database", Map.of(
+                "status", ok ? "UP" : "DOWN",
+                "pingMs", (System.nanoTime() - start) / 1_000_000));
+            return ok;
+        } catch (SQLException e) {
+            checks.put("database", Map.of("status", "DOWN", "error", String.valueOf(e.getMessage())));
+            return false;
+        }
+    }
+
+    // Only the dispatcher's own progress gates readiness; the backlog figures are informational
+    private boolean checkEmailOutbox(Map<String, Object> checks) {
+        Duration idle = Duration.between(emailOutboxDispatcher.getLastRunFinishedAt(), Instant.now());
+        boolean stalled = idle.compareTo(maxDispatcherIdle) > 0;
+        checks.put("emailOutbox", Map.of(
+            "status", stalled ? "STALLED" : "UP",
+            "pending", emailOutboxDispatcher.getPendingCount(),
+            "lagSeconds", emailOutboxDispatcher.getLagSeconds(),
+            "dueLagSeconds", emailOutboxDispatcher.getDueLagSeconds(),
+            "secondsSinceLastRun", idle.getSeconds()));
+        return !stalled;
+    }
+
+    // The Hikari pool behind the DataSource (which may be wrapped), or null before the pool has started
+    private HikariPoolMXBean hikariPool() {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) return null;
+            return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.fitlog.service;
+
+import com.fitlog.entity.RefreshToken;
+import com.fitlog.entity.User;
+import com.fitlog.repository.RefreshTokenRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Service for issuing and rotating refresh tokens.
+ * A refresh token is a random opaque value handed to the client in a cookie. The database only
+ * keeps its SHA-256 hash, so a leaked table cannot be used to log in.
+ * Every refresh rotates the token: the old one is revoked and a new one is issued. If a revoked
+ * token is ever presented again, it was stolen (or replayed), so all tokens of that user are revoked.
+ * Of several refreshes sent with the same token at the same time, exactly one rotates it.
+ */
+@Service
+public class RefreshTokenService {
+    // Refresh token validity: 14 days
+    public static final long REFRESH_TOKEN_TTL_SECONDS = 14 * 24 * 60 * 60;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+    }
+
+    // Result of a successful rotation: the owner of the token and the new raw token value
+    public record Rotation(User user, String refreshToken) {}
+
+    /**
+     * Issues a new refresh token for the user and returns the raw value (to be sent to the client).
+     */
+    @Transactional
+    public String issue(User user) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        RefreshToken token = new RefreshToken();
+        token.setUser(user);
+        token.setTokenHash(hash(rawToken));
+        token.setExpiresAt(LocalDateTime.now().plusSeconds(REFRESH_TOKEN_TTL_SECONDS));
+        refreshTokenRepository.save(token);
+        return rawToken;
+    }
+
+    /**
+     * Exchanges a refresh token for a new one. Returns empty if the token is unknown, expired or revoked.
+     */
+    @Transactional
+    public Optional<Rotation> rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) return Optional.empty();
+        Optional<RefreshToken> tokenOpt = refreshTokenRepository.findWithUserByTokenHash(hash(rawToken));
+        if (tokenOpt.isEmpty()) return Optional.empty();
+        RefreshToken token = tokenOpt.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (token.getRevokedAt() != null) {
+            // Reuse of a rotated token: assume it was stolen and log the user out everywhere
+            refreshTokenRepository.revokeAllForUser(token.getUser().getId(), now);
+            return Optional.empty();
+        }
+        if (token.getExpiresAt().isBefore(now)) {
+            return Optional.empty();
+        }
+        // Revoke it only if no concurrent refresh with the same token got there first (the update waits for
+        // that one's row lock). The loser is refused, but not treated as reuse: the client sent both at once.
+        if (refreshTokenRepository.revokeIfActive(token.getId(), now) == 0) {
+            return Optional.empty();
+        }
+        User user = token.getUser();
+        return Optional.of(new Rotation(user, issue(user)));
+    }
+
+    /**
+     * Revokes a refresh token (e.g. on logout). Unknown tokens are ignored.
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) return;
+        refreshTokenRepository.findByTokenHash(hash(rawToken)).ifPresent(token -> {
+            if (token.getRevokedAt() == null) {
+                token.setRevokedAt(LocalDateTime.now());
+                refreshTokenRepository.save(token);
+            }
+        });
+    }
+
+    // Remove expired tokens once an hour so the table only holds usable (or recently rotated) tokens
+    @Scheduled(fixedDelay = 60 * 60 * 1000)
+    @Transactional
+    public void purgeExpired() {
+        refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    // Hex-encoded SHA-256 of the raw token value
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
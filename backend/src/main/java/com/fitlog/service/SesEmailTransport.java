@@ -0,0 +1,70 @@
+package com.fitlog.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ses.SesClient;
+import software.amazon.awssdk.services.ses.model.Body;
+import software.amazon.awssdk.services.ses.model.Content;
+import software.amazon.awssdk.services.ses.model.Destination;
+import software.amazon.awssdk.services.ses.model.Message;
+import software.amazon.awssdk.services.ses.model.SendEmailRequest;
+import software.amazon.awssdk.services.ses.model.SesException;
+
+/**
+ * EmailTransport backed by Amazon SES.
+ * One SesClient is created at startup and shared: it keeps its HTTP connection pool, TLS sessions and
+ * resolved credentials across sends. The client is closed when the application shuts down.
+ *
+ * Batches use the default one-request-per-message sendBatch: SES bulk sending only works with stored
+ * templates, and our messages are personalized plain text. Pacing to the account's send quota is done
+ * by EmailOutboxDispatcher (email.send-rate-per-second).
+ */
+@Component
+@ConditionalOnProperty(name = "email.transport", havingValue = "ses", matchIfMissing = true)
+public class SesEmailTransport implements EmailTransport, AutoCloseable {
+    private final SesClient sesClient;
+    private final String senderEmail;
+
+    public SesEmailTransport(
+            // Sender email address (must be verified in SES)
+            @Value("${SES_SENDER_EMAIL:no-reply@fitlogapp.com}") String senderEmail,
+            // AWS Region (e.g., us-east-1)
+            @Value("${SES_REGION:us-east-1}") String awsRegion) {
+        this.senderEmail = senderEmail;
+        this.sesClient = SesClient.builder()
+            .region(Region.of(awsRegion))
+            .credentialsProvider(EnvironmentVariableCredentialsProvider.create())
+            .build();
+    }
+
+    @Override
+    public String send(EmailMessage message) {
+        SendEmailRequest emailRequest = SendEmailRequest.builder()
+            .destination(Destination.builder().toAddresses(message.to()).build())
+            .message(Message.builder()
+                .subject(Content.builder().data(message.subject()).build())
+                .body(Body.builder().text(Content.builder().data(message.body()).build()).build())
+                .build())
+            .source(senderEmail)
+            .build();
+        try {
+            return sesClient.sendEmail(emailRequest).messageId();
+        } catch (SesException e) {
+            String error = e.awsErrorDetails() != null ? e.awsErrorDetails().errorMessage() : e.getMessage();
+            // 4xx other than throttling means the request itself is bad (e.g. rejected address); don't retry
+            boolean throttled = e.isThrottlingException() || (error != null && error.contains("Maximum sending rate exceeded"));
+            throw new EmailTransportException("SES error: " + error, e.statusCode() >= 500, throttled, e);
+        } catch (RuntimeException e) {
+            // Network problems, missing credentials, ...
+            throw new EmailTransportException("Error sending SES email: " + e.getMessage(), true, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        sesClient.close();
+    }
+}
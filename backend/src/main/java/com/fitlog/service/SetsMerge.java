@@ -0,0 +1,68 @@
+package com.fitlog.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Three-way merge of the sets of a workout exercise (a JSON array, one element per set), for an update
+ * that started from an older version than the stored one (e.g. sets logged on a phone and a watch at once).
+ *
+ * Only appends merge: if both the update ("ours") and the stored sets ("theirs") keep the sets they started
+ * from ("base") unchanged at the front, the result is theirs followed by the sets ours appended. Anything
+ * else (an edited, removed or reordered set, or sets that are not a JSON array) does not merge.
+ */
+public final class SetsMerge {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private SetsMerge() {}
+
+    /**
+     * Returns the merged sets, or empty if the changes do not merge. Null or blank sets count as no sets.
+     */
+    public static Optional<String> mergeAppends(String base, String ours, String theirs) {
+        List<JsonNode> baseSets = parse(base);
+        List<JsonNode> ourSets = parse(ours);
+        List<JsonNode> theirSets = parse(theirs);
+        if (baseSets == null || ourSets == null || theirSets == null) {
+            return Optional.empty();
+        }
+        // Same sets on both sides (e.g. the same update sent twice): nothing to add
+        if (ourSets.equals(theirSets)) {
+            return Optional.of(theirs);
+        }
+        if (!startsWith(ourSets, baseSets) || !startsWith(theirSets, baseSets)) {
+            return Optional.empty();
+        }
+        ArrayNode merged = MAPPER.createArrayNode();
+        merged.addAll(theirSets);
+        merged.addAll(ourSets.subList(baseSets.size(), ourSets.size()));
+        return Optional.of(merged.toString());
+    }
+
+    // The elements of a JSON array, or null if the value is not one
+    private static List<JsonNode> parse(String sets) {
+        if (sets == null || sets.isBlank()) {
+            return List.of();
+        }
+        try {
+            JsonNode node = MAPPER.readTree(sets);
+            if (!node.isArray()) {
+                return null;
+            }
+            List<JsonNode> elements = new ArrayList<>(node.size());
+            node.forEach(elements::add);
+            return elements;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static boolean startsWith(List<JsonNode> sets, List<JsonNode> prefix) {
+        return sets.size() >= prefix.size() && sets.subList(0, prefix.size()).equals(prefix);
+    }
+}
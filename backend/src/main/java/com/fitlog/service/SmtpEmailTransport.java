@@ -0,0 +1,79 @@
+package com.fitlog.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * EmailTransport for any SMTP server (e.g. a local MailHog/Mailpit container).
+ * Uses the JavaMailSender configured from the spring.mail.* properties.
+ */
+@Component
+@ConditionalOnProperty(name = "email.transport", havingValue = "smtp")
+public class SmtpEmailTransport implements EmailTransport {
+    private final JavaMailSender mailSender;
+    private final String senderEmail;
+
+    public SmtpEmailTransport(JavaMailSender mailSender, @Value("${SES_SENDER_EMAIL:no-reply@fitlogapp.com}") String senderEmail) {
+        this.mailSender = mailSender;
+        this.senderEmail = senderEmail;
+    }
+
+    @Override
+    public String send(EmailMessage message) {
+        SimpleMailMessage mail = toMail(message);
+        try {
+            mailSender.send(mail);
+        } catch (MailParseException | MailAuthenticationException e) {
+            throw new EmailTransportException("SMTP error: " + e.getMessage(), false, e);
+        } catch (MailException e) {
+            throw new EmailTransportException("SMTP error: " + e.getMessage(), true, e);
+        }
+        // SMTP does not return a message id; generate one for the logs
+        return UUID.randomUUID().toString();
+    }
+
+    // Sends the whole batch over a single SMTP connection instead of one connection per message
+    @Override
+    public List<SendResult> sendBatch(List<EmailMessage> messages) {
+        SimpleMailMessage[] mails = messages.stream().map(this::toMail).toArray(SimpleMailMessage[]::new);
+        Map<Object, Exception> failed = Map.of();
+        try {
+            mailSender.send(mails);
+        } catch (MailSendException e) {
+            // Only the listed messages failed; the others were sent
+            failed = e.getFailedMessages();
+        } catch (MailException e) {
+            // Connection or authentication problem: nothing was sent
+            EmailTransportException error = new EmailTransportException("SMTP error: " + e.getMessage(), !(e instanceof MailAuthenticationException), e);
+            return messages.stream().map(message -> new SendResult(null, error)).toList();
+        }
+        List<SendResult> results = new ArrayList<>(mails.length);
+        for (SimpleMailMessage mail : mails) {
+            Exception error = failed.get(mail);
+            results.add(error == null
+                ? new SendResult(UUID.randomUUID().toString(), null)
+                : new SendResult(null, new EmailTransportException("SMTP error: " + error.getMessage(), !(error instanceof MailParseException), error)));
+        }
+        return results;
+    }
+
+    private SimpleMailMessage toMail(EmailMessage message) {
+        SimpleMailMessage mail = new SimpleMailMessage();
+        mail.setFrom(senderEmail);
+        mail.setTo(message.to());
+        mail.setSubject(message.subject());
+        mail.setText(message.body());
+        return mail;
+    }
+}
@@ -0,0 +1,71 @@
+package com.fitlog.service;
+
+/**
+ * Thread-safe token bucket used to pace calls to an external provider.
+ * Tokens refill continuously at ratePerSecond up to capacity (the allowed burst).
+ * Callers take what is available and never block while holding other resources.
+ */
+public class TokenBucket {
+    private final double ratePerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+    // While paused (after the provider reported throttling), no tokens are handed out
+    private long pausedUntil;
+
+    public TokenBucket(double ratePerSecond, double capacity) {
+        if (ratePerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Rate must be positive and capacity at least 1");
+        }
+        this.ratePerNano = ratePerSecond / 1_000_000_000d;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+        // Not paused; nanoTime can be negative, so 0 would not do
+        this.pausedUntil = lastRefill;
+    }
+
+    /**
+     * Takes up to max whole tokens and returns how many were taken (possibly 0).
+     */
+    public synchronized int tryAcquireUpTo(int max) {
+        long now = System.nanoTime();
+        refill(now);
+        if (now - pausedUntil < 0) return 0;
+        int taken = (int) Math.min(max, Math.floor(tokens));
+        tokens -= taken;
+        return taken;
+    }
+
+    /**
+     * Returns unused tokens (e.g. fewer messages were due than tokens taken).
+     */
+    public synchronized void refund(int count) {
+        if (count <= 0) return;
+        tokens = Math.min(capacity, tokens + count);
+    }
+
+    /**
+     * Stops handing out tokens for the given time and empties the bucket.
+     */
+    public synchronized void pause(long millis) {
+        pausedUntil = System.nanoTime() + millis * 1_000_000;
+        tokens = 0;
+    }
+
+    /**
+     * Milliseconds until at least one token can be taken.
+     */
+    public synchronized long millisUntilAvailable() {
+        long now = System.nanoTime();
+        refill(now);
+        long pauseNanos = Math.max(0, pausedUntil - now);
+        long refillNanos = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / ratePerNano);
+        return (Math.max(pauseNanos, refillNanos) + 999_999) / 1_000_000;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+    }
+}
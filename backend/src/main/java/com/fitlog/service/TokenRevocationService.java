@@ -0,0 +1,98 @@
+package com.fitlog.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory list of revoked access tokens (by their jti claim), checked on every request.
+ *
+ * Lookups go through a Bloom filter first: almost every token is not revoked, and the filter answers
+ * "definitely not revoked" with a handful of bit reads and no locking. Only when the filter reports a
+ * possible hit is the exact set consulted, which rules out false positives.
+ *
+ * Entries only need to live until the token would have expired anyway (access tokens are short-lived),
+ * so expired entries are purged periodically and the filter is rebuilt from the remaining ones.
+ * The list is per instance; a restart forgets revocations, which is bounded by the access token lifetime.
+ */
+@Service
+public class TokenRevocationService {
+    // 2^20 bits = 128 KB, enough for tens of thousands of revocations at a low false positive rate
+    private static final int BLOOM_BITS = 1 << 20;
+    private static final int BLOOM_HASHES = 5;
+
+    // Revoked token id -> epoch millis when the token expires
+    private final Map<UUID, Long> revoked = new ConcurrentHashMap<>();
+    private volatile AtomicLongArray bloom = new AtomicLongArray(BLOOM_BITS / 64);
+
+    /**
+     * Revokes the token with the given id until its expiry time.
+     */
+    public synchronized void revoke(UUID tokenId, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) return; // Already unusable
+        revoked.put(tokenId, expiresAtMillis);
+        addToBloom(bloom, tokenId);
+    }
+
+    /**
+     * Returns true if the token with the given id was revoked.
+     */
+    public boolean isRevoked(UUID tokenId) {
+        if (!mightContain(bloom, tokenId)) return false;
+        return revoked.containsKey(tokenId);
+    }
+
+    // Drop entries whose tokens have expired and rebuild the filter without them
+    @Scheduled(fixedDelay = 60 * 1000)
+    public synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        if (!revoked.values().removeIf(expiresAt -> expiresAt <= now)) return;
+        AtomicLongArray rebuilt = new AtomicLongArray(BLOOM_BITS / 64);
+        for (UUID tokenId : revoked.keySet()) {
+            addToBloom(rebuilt, tokenId);
+        }
+        bloom = rebuilt;
+    }
+
+    private static void addToBloom(AtomicLongArray bits, UUID tokenId) {
+        long h1 = mix(tokenId.getMostSignificantBits());
+        long h2 = mix(tokenId.getLeastSignificantBits());
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = bitIndex(h1, h2, i);
+            long mask = 1L << (bit & 63);
+            int word = bit >>> 6;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    private static boolean mightContain(AtomicLongArray bits, UUID tokenId) {
+        long h1 = mix(tokenId.getMostSignificantBits());
+        long h2 = mix(tokenId.getLeastSignificantBits());
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = bitIndex(h1, h2, i);
+            if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) return false;
+        }
+        return true;
+    }
+
+    // Double hashing (h1 + i * h2) gives the k bit positions from two base hashes
+    private static int bitIndex(long h1, long h2, int i) {
+        return (int) ((h1 + i * h2) & (BLOOM_BITS - 1));
+    }
+
+    // MurmurHash3 finalizer; spreads the fixed UUID version/variant bits over the whole word
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
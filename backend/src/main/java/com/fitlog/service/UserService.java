@@ -0,0 +1,31 @@
+package com.fitlog.service;
+
+import com.fitlog.entity.User;
+import com.fitlog.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for user account changes that span more than one table.
+ */
+@Service
+public class UserService {
+    private final UserRepository userRepository;
+    private final EmailService emailService;
+
+    public UserService(UserRepository userRepository, EmailService emailService) {
+        this.userRepository = userRepository;
+        this.emailService = emailService;
+    }
+
+    /**
+     * Saves a newly registered user and queues their verification email in one transaction.
+     * If the user cannot be saved (e.g. duplicate email), no email is queued.
+     */
+    @Transactional
+    public User registerUser(User user, String verificationCode) {
+        User saved = userRepository.saveAndFlush(user);
+        emailService.queueVerificationEmail(saved.getEmail(), verificationCode);
+        return saved;
+    }
+}
@@ -0,0 +1,102 @@
+package com.fitlog.trace;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitlog.jfr.RequestEvent;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs one structured (JSON) record per slow request.
+ *
+ * Every request gets a SqlTrace with statement totals; for a sample of requests
+ * (tracing.slow-request.sample-rate) it also records every SQL statement with its execution time and
+ * row count, and the rows returned. When a request takes longer than tracing.slow-request.threshold, a record with method,
+ * route, status, duration, user id and SQL totals is logged; for sampled requests it also holds the
+ * SQL statements. Fast requests log nothing.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SlowRequestLogFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(SlowRequestLogFilter.class);
+
+    private final ObjectMapper objectMapper;
+
+    // Requests slower than this are logged
+    @Value("${tracing.slow-request.threshold:PT0.5S}")
+    private Duration threshold;
+
+    // Fraction of requests whose individual SQL statements are recorded (0 none, 1 every request)
+    @Value("${tracing.slow-request.sample-rate:0.1}")
+    private double sampleRate;
+
+    public SlowRequestLogFilter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlTrace trace = SqlTrace.start(sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            SqlTrace.stop();
+            if (elapsed >= threshold.toNanos()) {
+                logSlowRequest(request, response, elapsed, trace);
+            }
+        }
+    }
+
+    private void logSlowRequest(HttpServletRequest request, HttpServletResponse response, long elapsedNanos, SqlTrace trace) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("event", "slow_request");
+        record.put("method", request.getMethod());
+        record.put("route", pattern != null ? pattern : request.getRequestURI());
+        record.put("status", response.getStatus());
+        record.put("durationMs", toMillis(elapsedNanos));
+        record.put("userId", request.getAttribute(RequestEvent.USER_ID_ATTRIBUTE));
+        record.put("sqlCount", trace.getStatementCount());
+        record.put("sqlTimeMs", toMillis(trace.getTotalNanos()));
+        record.put("sqlTraced", trace.isDetailed());
+        if (trace.isDetailed()) {
+            record.put("sqlRows", trace.getRowsReturned());
+            List<Map<String, Object>> statements = trace.getStatements().stream().map(s -> {
+                Map<String, Object> statement = new LinkedHashMap<>();
+                statement.put("sql", s.getSql());
+                statement.put("ms", toMillis(s.getDurationNanos()));
+                statement.put("rows", s.getRows());
+                return statement;
+            }).toList();
+            record.put("statements", statements);
+        }
+        try {
+            log.warn(objectMapper.writeValueAsString(record));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize slow request record for {} {}", request.getMethod(), request.getRequestURI(), e);
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
@@ -0,0 +1,84 @@
+package com.fitlog.trace;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted Space-Saving summary: approximate top-K heavy hitters in fixed memory.
+ *
+ * Keeps at most `capacity` counters. A key that is not tracked while the summary is full replaces the
+ * key with the smallest count and inherits that count as its error. Any key whose true total exceeds
+ * (total weight / capacity) is guaranteed to be tracked, and every estimate is within `error` above
+ * the true total. Not thread-safe; callers synchronize.
+ */
+public class SpaceSaving<K> {
+
+    // Estimated total for a key; the true total lies in [count - error, count]
+    public record Entry<K>(K key, long count, long error) {
+    }
+
+    private static final class Counter {
+        long count;
+        long error;
+    }
+
+    private final int capacity;
+    private final Map<K, Counter> counters;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void add(K key, long weight) {
+        if (weight <= 0) return;
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            counter = new Counter();
+            if (counters.size() >= capacity) {
+                // Evict the smallest counter; the newcomer may have had up to that much before
+                Map.Entry<K, Counter> min = null;
+                for (Map.Entry<K, Counter> e : counters.entrySet()) {
+                    if (min == null || e.getValue().count < min.getValue().count) min = e;
+                }
+                counters.remove(min.getKey());
+                counter.count = min.getValue().count;
+                counter.error = min.getValue().count;
+            }
+            counters.put(key, counter);
+        }
+        counter.count += weight;
+    }
+
+    public void clear() {
+        counters.clear();
+    }
+
+    public List<Entry<K>> entries() {
+        List<Entry<K>> entries = new ArrayList<>(counters.size());
+        counters.forEach((key, counter) -> entries.add(new Entry<>(key, counter.count, counter.error)));
+        return entries;
+    }
+
+    // Sum several summaries per key (used to merge time buckets) and return the `limit` largest.
+    // A key evicted from one of the summaries is under-counted by what it had there.
+    public static <K> List<Entry<K>> top(Collection<List<Entry<K>>> summaries, int limit) {
+        Map<K, long[]> merged = new HashMap<>();
+        for (List<Entry<K>> summary : summaries) {
+            for (Entry<K> entry : summary) {
+                long[] totals = merged.computeIfAbsent(entry.key(), k -> new long[2]);
+                totals[0] += entry.count();
+                totals[1] += entry.error();
+            }
+        }
+        return merged.entrySet().stream()
+                .map(e -> new Entry<>(e.getKey(), e.getValue()[0], e.getValue()[1]))
+                .sorted(Comparator.comparingLong((Entry<K> e) -> e.count()).reversed())
+                .limit(limit)
+                .toList();
+    }
+}
@@ -0,0 +1,112 @@
+package com.fitlog.trace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SQL executed by the current request.
+ *
+ * Every HTTP request has a trace with totals (statements, execution time), which feed the slow-request
+ * log and per-user cost accounting; SqlTraceSessionListener counts the statements Hibernate runs.
+ * Only detailed traces, picked by SlowRequestLogFilter's sampling, go through TracingDataSource's
+ * proxies: they count every statement and the rows returned, and keep each statement's text, time
+ * and row count. Outside requests current() is null and nothing is recorded.
+ */
+public final class SqlTrace {
+    private static final ThreadLocal<SqlTrace> CURRENT = new ThreadLocal<>();
+
+    // Bounds so a request running thousands of statements cannot blow up memory or the log line
+    static final int MAX_STATEMENTS = 200;
+    static final int MAX_SQL_LENGTH = 2000;
+
+    // One executed statement; rows is updated while the result set is read
+    public static final class Statement {
+        private final String sql;
+        private final long durationNanos;
+        private long rows;
+
+        Statement(String sql, long durationNanos, long rows) {
+            this.sql = sql;
+            this.durationNanos = durationNanos;
+            this.rows = rows;
+        }
+
+        public String getSql() { return sql; }
+        public long getDurationNanos() { return durationNanos; }
+        // Rows returned (queries) or affected (updates); -1 if unknown
+        public long getRows() { return rows; }
+
+        void addRow() {
+            rows++;
+        }
+    }
+
+    private final boolean detailed;
+    private final List<Statement> statements = new ArrayList<>();
+    private int statementCount;
+    private long totalNanos;
+    private long rowsReturned;
+
+    private SqlTrace(boolean detailed) {
+        this.detailed = detailed;
+    }
+
+    // Start tracing on the current thread; a detailed trace also keeps each statement
+    public static SqlTrace start(boolean detailed) {
+        SqlTrace trace = new SqlTrace(detailed);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    // The trace of the current thread, or null if the request is not traced
+    public static SqlTrace current() {
+        return CURRENT.get();
+    }
+
+    // Stop tracing on the current thread
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    // Record an executed statement; returns null if the trace is not detailed
+    // or MAX_STATEMENTS are already kept (it is still counted)
+    Statement record(String sql, long durationNanos, long rows) {
+        statementCount++;
+        totalNanos += durationNanos;
+        if (!detailed || statements.size() >= MAX_STATEMENTS) return null;
+        String text = sql == null ? "?" : sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) + "..." : sql;
+        Statement statement = new Statement(text, durationNanos, rows);
+        statements.add(statement);
+        return statement;
+    }
+
+    // Count a row read from a result set
+    void addRowReturned(Statement statement) {
+        rowsReturned++;
+        if (statement != null) statement.addRow();
+    }
+
+    public boolean isDetailed() {
+        return detailed;
+    }
+
+    public List<Statement> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    // Number of statements executed, including those not kept
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    // Total time spent executing statements
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    // Rows read from result sets; only counted by detailed traces
+    public long getRowsReturned() {
+        return rowsReturned;
+    }
+}
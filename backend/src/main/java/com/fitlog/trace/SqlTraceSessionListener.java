@@ -0,0 +1,42 @@
+package com.fitlog.trace;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds the statements Hibernate executes to the current SqlTrace, for traces that are not detailed.
+ *
+ * Hibernate creates one listener per session (hibernate.session.events.auto) and calls it on the thread
+ * using the session, so totals (statement count and execution time) cost two clock reads per statement
+ * instead of wrapping connections, statements and result sets. Detailed traces are recorded by
+ * TracingDataSource instead, which also counts rows.
+ */
+public class SqlTraceSessionListener implements SessionEventListener {
+    private long executeStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        recordExecution();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        recordExecution();
+    }
+
+    private void recordExecution() {
+        SqlTrace trace = SqlTrace.current();
+        if (trace != null && !trace.isDetailed()) {
+            trace.record(null, System.nanoTime() - executeStart, -1);
+        }
+    }
+}
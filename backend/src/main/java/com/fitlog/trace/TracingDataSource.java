@@ -0,0 +1,143 @@
+package com.fitlog.trace;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource wrapper that records executed statements into the current SqlTrace.
+ *
+ * Connections are only wrapped while a detailed trace is active on the thread (sampled HTTP requests):
+ * the proxies cost a reflective call for every JDBC call, down to each column read. Other requests
+ * count their statements through SqlTraceSessionListener, and background jobs are not traced.
+ * Connections handed out outside a detailed trace are plain pool connections. unwrap()/isWrapperFor() reach the pool
+ * (DelegatingDataSource), so pool metrics keep working.
+ */
+public class TracingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    public TracingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return traced(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return traced(super.getConnection(username, password));
+    }
+
+    // Close the pool on shutdown (the wrapper replaces the pool bean, so it receives the destroy callback)
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static Connection traced(Connection connection) {
+        SqlTrace trace = SqlTrace.current();
+        if (trace == null || !trace.isDetailed()) return connection;
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            String name = method.getName();
+            if (result instanceof CallableStatement statement && name.equals("prepareCall")) {
+                return tracedStatement(CallableStatement.class, statement, (String) args[0], trace);
+            }
+            if (result instanceof PreparedStatement statement && name.equals("prepareStatement")) {
+                return tracedStatement(PreparedStatement.class, statement, (String) args[0], trace);
+            }
+            if (result instanceof Statement statement && name.equals("createStatement")) {
+                return tracedStatement(Statement.class, statement, null, trace);
+            }
+            return result;
+        });
+    }
+
+    // Times execute* calls and counts the rows they return or affect
+    private static <T extends Statement> T tracedStatement(Class<T> type, T statement, String preparedSql, SqlTrace trace) {
+        SqlTrace.Statement[] last = new SqlTrace.Statement[1];
+        return proxy(type, statement, (target, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+                long start = System.nanoTime();
+                Object result = invoke(target, method, args);
+                long elapsed = System.nanoTime() - start;
+                if (result instanceof ResultSet resultSet) {
+                    last[0] = trace.record(sql, elapsed, 0);
+                    return tracedResultSet(resultSet, trace, last[0]);
+                }
+                last[0] = trace.record(sql, elapsed, rowCount(result));
+                return result;
+            }
+            Object result = invoke(target, method, args);
+            if (result instanceof ResultSet resultSet && name.equals("getResultSet")) {
+                return tracedResultSet(resultSet, trace, last[0]);
+            }
+            return result;
+        });
+    }
+
+    // Counts rows as they are read (statement is null when the trace does not keep statements)
+    private static ResultSet tracedResultSet(ResultSet resultSet, SqlTrace trace, SqlTrace.Statement statement) {
+        return proxy(ResultSet.class, resultSet, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                trace.addRowReturned(statement);
+            }
+            return result;
+        });
+    }
+
+    // Rows affected by executeUpdate/executeBatch, -1 when the result does not say
+    private static long rowCount(Object result) {
+        if (result instanceof Number number) return number.longValue();
+        if (result instanceof int[] counts) {
+            long total = 0;
+            for (int count : counts) total += Math.max(count, 0);
+            return total;
+        }
+        if (result instanceof long[] counts) {
+            long total = 0;
+            for (long count : counts) total += Math.max(count, 0);
+            return total;
+        }
+        return -1;
+    }
+
+    @FunctionalInterface
+    private interface Handler<T> {
+        Object handle(T target, Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> switch (method.getName()) {
+            // Identity semantics, so the driver and Hibernate can keep proxies in hash-based collections
+            case "equals" -> args.length == 1 && proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> handler.handle(target, method, args);
+        };
+        return (T) Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(), new Class<?>[] {type}, invocationHandler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.fitlog.trace;
+
+import com.fitlog.jfr.RequestEvent;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.UUID;
+
+// Adds the cost of every authenticated request to UserCostTracker.
+// Runs inside SlowRequestLogFilter, so the request's SqlTrace holds its DB time. Rows are only counted by the
+// sampled (detailed) traces: each counts for 1/sample-rate requests, which estimates every user's rows.
+// Heavy users make many requests, so their estimates are close; a single request can be far off.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class UserCostFilter extends OncePerRequestFilter {
+    private final UserCostTracker userCostTracker;
+
+    // The fraction of requests with detailed traces (see SlowRequestLogFilter)
+    @Value("${tracing.slow-request.sample-rate:0.1}")
+    private double sampleRate;
+
+    public UserCostFilter(UserCostTracker userCostTracker) {
+        this.userCostTracker = userCostTracker;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CountingResponse countingResponse = new CountingResponse(response);
+        try {
+            filterChain.doFilter(request, countingResponse);
+        } finally {
+            // Set by JwtAuthFilter once the token is validated; anonymous requests are not accounted
+            Object userId = request.getAttribute(RequestEvent.USER_ID_ATTRIBUTE);
+            SqlTrace trace = SqlTrace.current();
+            if (userId != null) {
+                userCostTracker.record(UUID.fromString(userId.toString()),
+                        trace != null ? trace.getTotalNanos() : 0,
+                        trace != null && trace.isDetailed() ? Math.round(trace.getRowsReturned() / sampleRate) : 0,
+                        countingResponse.bytes);
+            }
+        }
+    }
+
+    // Counts the bytes written through the response output stream (JSON bodies are written this way)
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+        private long bytes;
+        private ServletOutputStream outputStream;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegate.write(b);
+                        bytes++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delegate.write(b, off, len);
+                        bytes += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        delegate.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.fitlog.trace;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-user request cost accounting in fixed memory.
+ *
+ * Costs (requests, DB time, rows returned, response bytes) are added to one-minute buckets covering the
+ * last hour; rows are estimated from the sampled requests (see UserCostFilter). Each bucket keeps a
+ * Space-Saving summary per metric with at most usage.top-k-capacity users, so memory does not grow with
+ * the number of users. Queries merge the buckets of a sliding window.
+ */
+@Component
+public class UserCostTracker {
+    public enum Metric { REQUESTS, DB_TIME, ROWS, RESPONSE_BYTES }
+
+    // One bucket per minute, one hour of history
+    static final long BUCKET_MILLIS = 60_000;
+    public static final int MAX_WINDOW_MINUTES = 60;
+
+    private final Bucket[] buckets = new Bucket[MAX_WINDOW_MINUTES];
+
+    private static final class Bucket {
+        long minute = -1;
+        final Map<Metric, SpaceSaving<UUID>> summaries = new EnumMap<>(Metric.class);
+
+        Bucket(int capacity) {
+            for (Metric metric : Metric.values()) summaries.put(metric, new SpaceSaving<>(capacity));
+        }
+    }
+
+    public UserCostTracker(@Value("${usage.top-k-capacity:100}") int capacity) {
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new Bucket(capacity);
+    }
+
+    // Add the cost of one request by a user (DB time in nanoseconds, recorded in microseconds)
+    public void record(UUID userId, long dbNanos, long rows, long responseBytes) {
+        long minute = System.currentTimeMillis() / BUCKET_MILLIS;
+        Bucket bucket = buckets[(int) (minute % buckets.length)];
+        synchronized (bucket) {
+            if (bucket.minute != minute) {
+                // The slot still holds a bucket from an hour (or more) ago
+                bucket.summaries.values().forEach(SpaceSaving::clear);
+                bucket.minute = minute;
+            }
+            bucket.summaries.get(Metric.REQUESTS).add(userId, 1);
+            bucket.summaries.get(Metric.DB_TIME).add(userId, dbNanos / 1000);
+            bucket.summaries.get(Metric.ROWS).add(userId, rows);
+            bucket.summaries.get(Metric.RESPONSE_BYTES).add(userId, responseBytes);
+        }
+    }
+
+    /**
+     * The heaviest users over the last windowMinutes (1-60), ranked by the given metric.
+     * Each row holds the user's estimates for all metrics (0 when a user is not among the tracked users
+     * for that metric) and the maximum over-estimate of the ranking metric.
+     */
+    public List<Map<String, Object>> heaviest(Metric by, int windowMinutes, int limit) {
+        long now = System.currentTimeMillis() / BUCKET_MILLIS;
+        Map<Metric, List<List<SpaceSaving.Entry<UUID>>>> snapshots = new EnumMap<>(Metric.class);
+        for (Metric metric : Metric.values()) snapshots.put(metric, new ArrayList<>());
+        for (Bucket bucket : buckets) {
+            synchronized (bucket) {
+                if (bucket.minute < 0 || now - bucket.minute >= windowMinutes) continue;
+                bucket.summaries.forEach((metric, summary) -> snapshots.get(metric).add(summary.entries()));
+            }
+        }
+        Map<Metric, Map<UUID, Long>> totals = new EnumMap<>(Metric.class);
+        for (Metric metric : Metric.values()) {
+            Map<UUID, Long> perUser = new LinkedHashMap<>();
+            SpaceSaving.top(snapshots.get(metric), Integer.MAX_VALUE).forEach(e -> perUser.put(e.key(), e.count()));
+            totals.put(metric, perUser);
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SpaceSaving.Entry<UUID> entry : SpaceSaving.top(snapshots.get(by), limit)) {
+            UUID userId = entry.key();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("userId", userId);
+            row.put("requests", totals.get(Metric.REQUESTS).getOrDefault(userId, 0L));
+            row.put("dbTimeMs", totals.get(Metric.DB_TIME).getOrDefault(userId, 0L) / 1000);
+            row.put("rows", totals.get(Metric.ROWS).getOrDefault(userId, 0L));
+            row.put("responseBytes", totals.get(Metric.RESPONSE_BYTES).getOrDefault(userId, 0L));
+            row.put("maxError", entry.error());
+            result.add(row);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,56 @@
+-- Schema as previously created by Hibernate (spring.jpa.hibernate.ddl-auto=update).
+-- Existing databases already have it: Flyway baselines them at version 1 and skips this script.
+
+CREATE TABLE users (
+    id                        UUID         NOT NULL,
+    email                     VARCHAR(255) NOT NULL,
+    password                  VARCHAR(255) NOT NULL,
+    role                      VARCHAR(255) NOT NULL,
+    email_verification_code   VARCHAR(10),
+    email_verification_expiry TIMESTAMP(6),
+    email_verified            BOOLEAN      NOT NULL,
+    created_at                TIMESTAMP(6) NOT NULL,
+    updated_at                TIMESTAMP(6) NOT NULL,
+    CONSTRAINT users_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE exercises (
+    id            UUID         NOT NULL,
+    name          VARCHAR(100) NOT NULL,
+    muscle_groups VARCHAR(100),
+    notes         VARCHAR(500),
+    is_public     BOOLEAN      NOT NULL,
+    is_active     BOOLEAN      NOT NULL,
+    created_by    UUID         NOT NULL,
+    created_at    TIMESTAMP(6) NOT NULL,
+    updated_at    TIMESTAMP(6) NOT NULL,
+    CONSTRAINT exercises_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_exercises_name UNIQUE (name),
+    CONSTRAINT fk_exercises_created_by FOREIGN KEY (created_by) REFERENCES users (id)
+);
+
+CREATE TABLE workouts (
+    id         UUID         NOT NULL,
+    user_id    UUID         NOT NULL,
+    date       DATE         NOT NULL,
+    notes      VARCHAR(500),
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT workouts_pkey PRIMARY KEY (id),
+    CONSTRAINT fk_workouts_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE workout_exercises (
+    id          UUID         NOT NULL,
+    workout_id  UUID         NOT NULL,
+    exercise_id UUID         NOT NULL,
+    position    INTEGER      NOT NULL,
+    sets        TEXT,
+    notes       VARCHAR(500),
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6) NOT NULL,
+    CONSTRAINT workout_exercises_pkey PRIMARY KEY (id),
+    CONSTRAINT fk_workout_exercises_workout FOREIGN KEY (workout_id) REFERENCES workouts (id),
+    CONSTRAINT fk_workout_exercises_exercise FOREIGN KEY (exercise_id) REFERENCES exercises (id)
+);
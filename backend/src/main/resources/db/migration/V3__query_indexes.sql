@@ -0,0 +1,26 @@
+-- Indexes for the repository queries. Primary keys and the unique columns of V1 and V2
+-- (users.email, exercises.name, refresh_tokens.token_hash) are already indexed.
+
+-- One workout per user and day (WorkoutController.createWorkout returns the existing one).
+-- Also serves WorkoutRepository.findByUserIdAndDate and, through its leading column,
+-- findByUserId, so workouts needs no separate user_id index.
+-- Fails on databases that already hold two workouts of a user on the same date; find them with:
+--   SELECT user_id, date, COUNT(*) FROM workouts GROUP BY user_id, date HAVING COUNT(*) > 1;
+ALTER TABLE workouts ADD CONSTRAINT uk_workouts_user_date UNIQUE (user_id, date);
+
+-- WorkoutExerciseRepository.findByWorkoutId / findByWorkoutIdIn (a workout's exercises in order)
+CREATE INDEX idx_workout_exercises_workout ON workout_exercises (workout_id, position);
+
+-- Foreign key lookups: which workouts use an exercise, which exercises a user created
+CREATE INDEX idx_workout_exercises_exercise ON workout_exercises (exercise_id);
+CREATE INDEX idx_exercises_created_by ON exercises (created_by);
+
+-- RefreshTokenRepository.revokeAllForUser only touches a user's still-active tokens
+CREATE INDEX idx_refresh_tokens_user_active ON refresh_tokens (user_id) WHERE revoked_at IS NULL;
+-- RefreshTokenRepository.deleteExpired
+CREATE INDEX idx_refresh_tokens_expires_at ON refresh_tokens (expires_at);
+
+-- EmailOutboxRepository.claimPending and findOldestPendingCreatedAt only look at pending rows,
+-- which stay a tiny fraction of the table
+CREATE INDEX idx_email_outbox_pending_next_attempt ON email_outbox (next_attempt_at) WHERE status = 'PENDING';
+CREATE INDEX idx_email_outbox_pending_created_at ON email_outbox (created_at) WHERE status = 'PENDING';
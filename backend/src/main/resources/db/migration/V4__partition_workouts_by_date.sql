@@ -0,0 +1,137 @@
+-- Range partitioning of workouts and workout_exercises by workout date, one partition per month
+-- (workouts_pYYYY_MM, workout_exercises_pYYYY_MM). Reads that name the date only scan the matching
+-- partitions, and each partition has its own indexes, so index sizes and vacuum work follow recent
+-- activity instead of total history. PartitionMaintenance creates the coming months' partitions and
+-- freezes (optionally detaches) old ones through the functions below.
+-- Needs PostgreSQL 15 or later: moving a workout to a date in another month moves its exercises along
+-- (ON UPDATE CASCADE across partitions).
+
+-- workout_exercises carries the date of its workout: it is the partition key of both tables,
+-- so a workout and its exercises always sit in partitions of the same month
+ALTER TABLE workout_exercises RENAME TO workout_exercises_unpartitioned;
+ALTER TABLE workouts RENAME TO workouts_unpartitioned;
+
+CREATE TABLE workouts (
+    id         UUID         NOT NULL,
+    user_id    UUID         NOT NULL,
+    date       DATE         NOT NULL,
+    notes      VARCHAR(500),
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL
+) PARTITION BY RANGE (date);
+
+CREATE TABLE workout_exercises (
+    id           UUID         NOT NULL,
+    workout_id   UUID         NOT NULL,
+    workout_date DATE         NOT NULL,
+    exercise_id  UUID         NOT NULL,
+    position     INTEGER      NOT NULL,
+    sets         TEXT,
+    notes        VARCHAR(500),
+    created_at   TIMESTAMP(6) NOT NULL,
+    updated_at   TIMESTAMP(6) NOT NULL
+) PARTITION BY RANGE (workout_date);
+
+-- Dates outside the monthly partitions (far past or far future) land here
+CREATE TABLE workouts_default PARTITION OF workouts DEFAULT;
+CREATE TABLE workout_exercises_default PARTITION OF workout_exercises DEFAULT;
+
+-- Creates the monthly partitions of both tables for from_month..to_month (inclusive) that do not exist yet;
+-- returns how many months were created. A month that already has rows in the default partition is skipped
+-- with a warning (its rows would have to move first), its data keeps living in the default partition.
+CREATE FUNCTION fitlog_create_partitions(from_month DATE, to_month DATE) RETURNS INTEGER AS $$
+DECLARE
+    m       DATE := date_trunc('month', from_month)::date;
+    next_m  DATE;
+    suffix  TEXT;
+    created INTEGER := 0;
+BEGIN
+    -- One maintenance run at a time, whichever instance starts it
+    PERFORM pg_advisory_xact_lock(hashtext('fitlog_partitions'));
+    WHILE m <= to_month LOOP
+        next_m := (m + INTERVAL '1 month')::date;
+        suffix := to_char(m, '"p"YYYY_MM');
+        IF to_regclass('workouts_' || suffix) IS NULL THEN
+            IF EXISTS (SELECT 1 FROM workouts_default WHERE date >= m AND date < next_m) THEN
+                RAISE WARNING 'workouts_default has rows for %, partition workouts_% not created', to_char(m, 'YYYY-MM'), suffix;
+            ELSE
+                EXECUTE format('CREATE TABLE %I PARTITION OF workouts FOR VALUES FROM (%L) TO (%L)', 'workouts_' || suffix, m, next_m);
+                EXECUTE format('CREATE TABLE %I PARTITION OF workout_exercises FOR VALUES FROM (%L) TO (%L)', 'workout_exercises_' || suffix, m, next_m);
+                created := created + 1;
+            END IF;
+        END IF;
+        m := next_m;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Detaches the monthly partitions of both tables for months before before_month; returns how many months
+-- were detached. They stay in the database as standalone tables (workouts_pYYYY_MM, workout_exercises_pYYYY_MM)
+-- to be archived or dropped, and no longer show up in the application.
+CREATE FUNCTION fitlog_detach_partitions(before_month DATE) RETURNS INTEGER AS $$
+DECLARE
+    part     RECORD;
+    fk       RECORD;
+    detached INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('fitlog_partitions'));
+    FOR part IN
+        SELECT substring(c.relname FROM 'p[0-9]{4}_[0-9]{2}$') AS suffix
+        FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'workouts'::regclass AND c.relname ~ '^workouts_p[0-9]{4}_[0-9]{2}$'
+        ORDER BY c.relname
+    LOOP
+        CONTINUE WHEN to_date(part.suffix, '"p"YYYY_MM') >= date_trunc('month', before_month)::date;
+        -- The exercises first: a workouts partition can only be detached once nothing refers to its rows
+        IF EXISTS (SELECT 1 FROM pg_inherits WHERE inhparent = 'workout_exercises'::regclass
+                   AND inhrelid = to_regclass('workout_exercises_' || part.suffix)) THEN
+            EXECUTE format('ALTER TABLE workout_exercises DETACH PARTITION %I', 'workout_exercises_' || part.suffix);
+        END IF;
+        EXECUTE format('ALTER TABLE workouts DETACH PARTITION %I', 'workouts_' || part.suffix);
+        -- Detached tables keep copies of the foreign keys; archives must not block deleting users or workouts
+        FOR fk IN
+            SELECT conrelid::regclass AS tbl, conname FROM pg_constraint
+            WHERE contype = 'f' AND conrelid IN (to_regclass('workouts_' || part.suffix), to_regclass('workout_exercises_' || part.suffix))
+        LOOP
+            EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.tbl, fk.conname);
+        END LOOP;
+        detached := detached + 1;
+    END LOOP;
+    RETURN detached;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for the existing data (at most ten years back, older rows go to the default partition)
+-- and the next three months
+SELECT fitlog_create_partitions(
+    GREATEST(COALESCE((SELECT MIN(date) FROM workouts_unpartitioned), CURRENT_DATE), (CURRENT_DATE - INTERVAL '10 years')::date),
+    LEAST(GREATEST(COALESCE((SELECT MAX(date) FROM workouts_unpartitioned), CURRENT_DATE), CURRENT_DATE),
+          (CURRENT_DATE + INTERVAL '3 months')::date));
+
+INSERT INTO workouts (id, user_id, date, notes, created_at, updated_at)
+SELECT id, user_id, date, notes, created_at, updated_at FROM workouts_unpartitioned;
+
+INSERT INTO workout_exercises (id, workout_id, workout_date, exercise_id, position, sets, notes, created_at, updated_at)
+SELECT we.id, we.workout_id, w.date, we.exercise_id, we.position, we.sets, we.notes, we.created_at, we.updated_at
+FROM workout_exercises_unpartitioned we JOIN workouts_unpartitioned w ON w.id = we.workout_id;
+
+DROP TABLE workout_exercises_unpartitioned;
+DROP TABLE workouts_unpartitioned;
+
+-- Keys and indexes, created on every partition. Unique keys of a partitioned table must contain the
+-- partition key: the ids (time-ordered UUIDs generated by the application) are unique on their own,
+-- the primary keys add the date.
+ALTER TABLE workouts ADD CONSTRAINT workouts_pkey PRIMARY KEY (id, date);
+ALTER TABLE workouts ADD CONSTRAINT uk_workouts_user_date UNIQUE (user_id, date);
+ALTER TABLE workouts ADD CONSTRAINT fk_workouts_user FOREIGN KEY (user_id) REFERENCES users (id);
+
+ALTER TABLE workout_exercises ADD CONSTRAINT workout_exercises_pkey PRIMARY KEY (id, workout_date);
+ALTER TABLE workout_exercises ADD CONSTRAINT fk_workout_exercises_workout
+    FOREIGN KEY (workout_id, workout_date) REFERENCES workouts (id, date) ON UPDATE CASCADE;
+ALTER TABLE workout_exercises ADD CONSTRAINT fk_workout_exercises_exercise FOREIGN KEY (exercise_id) REFERENCES exercises (id);
+CREATE INDEX idx_workout_exercises_workout ON workout_exercises (workout_id, position);
+CREATE INDEX idx_workout_exercises_exercise ON workout_exercises (exercise_id);
+
+ANALYZE workouts;
+ANALYZE workout_exercises;
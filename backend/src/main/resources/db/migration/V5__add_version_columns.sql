@@ -0,0 +1,5 @@
+-- Optimistic locking of workouts and workout exercises (@Version): every update increments the version
+-- and only applies if the row still has the version it was read at. The versions are the ETags of the
+-- API (If-Match on PUT). Added on the partitioned tables, so every partition, current and future, has it.
+ALTER TABLE workouts ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE workout_exercises ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,37 @@
+package com.fitlog;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+// Tests disable metrics exporters (and so /actuator/prometheus) unless asked for
+@AutoConfigureObservability
+// Use the test profile configuration (application-test.properties) to ensure tests run against H2, not the real database
+@org.springframework.test.context.TestPropertySource(locations = "classpath:application-test.properties")
+public class MetricsEndpointTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheusEndpointExposesRequestAndRepositoryMetrics() throws Exception {
+        mockMvc.perform(get("/health")).andExpect(status().isOk());
+        mockMvc.perform(get("/workouts")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds")))
+                .andExpect(content().string(containsString("uri=\"/health\"")))
+                .andExpect(content().string(containsString("quantile=\"0.99\"")))
+                .andExpect(content().string(containsString("jvm_gc")))
+                .andExpect(content().string(containsString("hikaricp_connections")))
+                .andExpect(content().string(containsString("hibernate_second_level_cache_requests")));
+    }
+}
@@ -0,0 +1,261 @@
+package com.fitlog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitlog.entity.Exercise;
+import com.fitlog.entity.User;
+import com.fitlog.repository.ExerciseRepository;
+import com.fitlog.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockCookie;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Second-level cache (HibernateCacheConfig): cached reads run no SQL, changes made through the controllers
+// are visible right away instead of after the TTL, and updates do not undo changes this instance's cache missed
+@SpringBootTest
+@AutoConfigureMockMvc
+// Use the test profile configuration (application-test.properties) to ensure tests run against H2, not the real database
+@org.springframework.test.context.TestPropertySource(locations = "classpath:application-test.properties")
+public class SecondLevelCacheTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String testPassword = "testpassword";
+
+    // Helper to extract JWT from Set-Cookie header
+    private String extractJwtFromSetCookie(MvcResult result) {
+        String setCookie = result.getResponse().getHeader("Set-Cookie");
+        if (setCookie == null) return null;
+        for (String cookie : setCookie.split(";")) {
+            if (cookie.trim().startsWith("jwt=")) {
+                return cookie.trim().substring(4);
+            }
+        }
+        return null;
+    }
+
+    // Helper to register a user (not verified yet) and return their email
+    private String registerUnverifiedUser(String base) throws Exception {
+        String email = base + "+" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+        var createUser = new HashMap<String, String>();
+        createUser.put("email", email);
+        createUser.put("password", testPassword);
+        mockMvc.perform(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createUser)))
+                .andExpect(status().isCreated());
+        return email;
+    }
+
+    // Helper to register a user and return their email
+    private String registerUser(String base) throws Exception {
+        String email = registerUnverifiedUser(base);
+        // Mark user as verified for tests
+        userRepository.findByEmail(email).ifPresent(user -> {
+            user.setEmailVerified(true);
+            userRepository.save(user);
+        });
+        return email;
+    }
+
+    // Helper to login and get JWT cookie
+    private MockCookie loginAndGetJwtCookie(String email, String password) throws Exception {
+        var loginUser = new HashMap<String, String>();
+        loginUser.put("email", email);
+        loginUser.put("password", password);
+        MvcResult loginResult = mockMvc.perform(post("/users/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginUser)))
+                .andExpect(status().isOk())
+                .andReturn();
+        String jwt = extractJwtFromSetCookie(loginResult);
+        return new MockCookie("jwt", jwt);
+    }
+
+    // Helper to set admin role for a user
+    private void setAdminRole(String email) {
+        userRepository.findByEmail(email).ifPresent(user -> {
+            user.setRole("ADMIN");
+            userRepository.save(user);
+        });
+    }
+
+    // Helper to save a public exercise created by the given user
+    private Exercise savePublicExercise(String name, String creatorEmail) {
+        Exercise exercise = new Exercise();
+        exercise.setName(name);
+        exercise.setPublic(true);
+        exercise.setActive(true);
+        exercise.setCreatedBy(userRepository.findByEmail(creatorEmail).get());
+        return exerciseRepository.save(exercise);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void exercisesAreReadFromTheCacheAndControllerChangesReplaceThem() throws Exception {
+        String adminEmail = registerUser("admin");
+        setAdminRole(adminEmail);
+        MockCookie jwt = loginAndGetJwtCookie(adminEmail, testPassword);
+        String name = "Plank " + UUID.randomUUID();
+        UUID id = savePublicExercise(name, adminEmail).getId();
+        exerciseRepository.findById(id);
+
+        SqlStatementCounter sqlStatements = new SqlStatementCounter(entityManagerFactory);
+        sqlStatements.reset();
+        assertEquals(name, exerciseRepository.findById(id).get().getName());
+        assertEquals(0, sqlStatements.count());
+        assertEquals(1, statistics().getDomainDataRegionStatistics("exercises").getHitCount());
+
+        String newName = "Side Plank " + UUID.randomUUID();
+        Map<String, Object> req = Map.of("name", newName, "isPublic", true, "muscleGroups", "Core", "notes", "");
+        mockMvc.perform(put("/exercises/" + id)
+                .cookie(jwt)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk());
+        sqlStatements.reset();
+        Exercise updated = exerciseRepository.findById(id).get();
+        assertEquals(newName, updated.getName());
+        assertEquals("Core", updated.getMuscleGroups());
+        assertEquals(0, sqlStatements.count());
+
+        mockMvc.perform(delete("/exercises/" + id).cookie(jwt))
+                .andExpect(status().isOk());
+        assertFalse(exerciseRepository.findById(id).get().isActive());
+    }
+
+    @Test
+    void exerciseUpdatesAndDeletesKeepChangesMadeByOtherInstances() throws Exception {
+        String adminEmail = registerUser("admin");
+        setAdminRole(adminEmail);
+        MockCookie jwt = loginAndGetJwtCookie(adminEmail, testPassword);
+        String name = "Lunge " + UUID.randomUUID();
+        UUID id = savePublicExercise(name, adminEmail).getId();
+        exerciseRepository.findById(id);
+        assertTrue(entityManagerFactory.getCache().contains(Exercise.class, id));
+
+        // Another instance deletes the exercise: this instance's cache still holds it as active
+        jdbcTemplate.update("UPDATE exercises SET is_active = false WHERE id = ?", id);
+        assertTrue(exerciseRepository.findById(id).get().isActive());
+        String newName = "Walking Lunge " + UUID.randomUUID();
+        Map<String, Object> req = Map.of("name", newName, "isPublic", true, "muscleGroups", "Legs", "notes", "");
+        mockMvc.perform(put("/exercises/" + id)
+                .cookie(jwt)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk());
+        // The update started from the current row: the exercise stays deleted
+        assertEquals(Boolean.FALSE, jdbcTemplate.queryForObject("SELECT is_active FROM exercises WHERE id = ?", Boolean.class, id));
+        assertEquals(newName, jdbcTemplate.queryForObject("SELECT name FROM exercises WHERE id = ?", String.class, id));
+        assertFalse(exerciseRepository.findById(id).get().isActive());
+
+        // Another instance restores it with new notes; deleting here keeps the notes
+        jdbcTemplate.update("UPDATE exercises SET is_active = true, notes = 'Knee over ankle' WHERE id = ?", id);
+        mockMvc.perform(delete("/exercises/" + id).cookie(jwt))
+                .andExpect(status().isOk());
+        assertEquals("Knee over ankle", jdbcTemplate.queryForObject("SELECT notes FROM exercises WHERE id = ?", String.class, id));
+        assertEquals(Boolean.FALSE, jdbcTemplate.queryForObject("SELECT is_active FROM exercises WHERE id = ?", Boolean.class, id));
+    }
+
+    @Test
+    void publicCatalogIsCachedUntilExercisesChange() throws Exception {
+        String adminEmail = registerUser("admin");
+        setAdminRole(adminEmail);
+        MockCookie adminJwt = loginAndGetJwtCookie(adminEmail, testPassword);
+        String userEmail = registerUser("user");
+        MockCookie jwt = loginAndGetJwtCookie(userEmail, testPassword);
+        String name = "Burpee " + UUID.randomUUID();
+        UUID id = savePublicExercise(name, adminEmail).getId();
+
+        mockMvc.perform(get("/exercises").cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.name=='" + name + "')]").exists());
+        SqlStatementCounter sqlStatements = new SqlStatementCounter(entityManagerFactory);
+        sqlStatements.reset();
+        mockMvc.perform(get("/exercises").cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.name=='" + name + "')]").exists());
+        // The catalog came from the query cache; only the user's private exercises were queried
+        assertEquals(1, statistics().getQueryRegionStatistics("exercise-catalog").getHitCount());
+        assertEquals(1, sqlStatements.count());
+
+        String newName = "Half Burpee " + UUID.randomUUID();
+        Map<String, Object> req = Map.of("name", newName, "isPublic", true, "muscleGroups", "Full body", "notes", "");
+        mockMvc.perform(put("/exercises/" + id)
+                .cookie(adminJwt)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/exercises").cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.name=='" + newName + "')]").exists())
+                .andExpect(jsonPath("$[?(@.name=='" + name + "')]").doesNotExist());
+
+        mockMvc.perform(delete("/exercises/" + id).cookie(adminJwt))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/exercises").cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.name=='" + newName + "')]").doesNotExist());
+    }
+
+    @Test
+    void usersAreReadFromTheCacheAndControllerChangesReplaceThem() throws Exception {
+        String email = registerUnverifiedUser("user");
+        User registered = userRepository.findByEmail(email).get();
+        UUID id = registered.getId();
+        userRepository.findById(id);
+
+        SqlStatementCounter sqlStatements = new SqlStatementCounter(entityManagerFactory);
+        sqlStatements.reset();
+        assertFalse(userRepository.findById(id).get().isEmailVerified());
+        assertEquals(0, sqlStatements.count());
+        assertEquals(1, statistics().getDomainDataRegionStatistics("users").getHitCount());
+
+        mockMvc.perform(post("/users/verify-email")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("email", email, "code", registered.getEmailVerificationCode()))))
+                .andExpect(status().isOk());
+        sqlStatements.reset();
+        assertTrue(userRepository.findById(id).get().isEmailVerified());
+        assertEquals(0, sqlStatements.count());
+
+        MockCookie jwt = loginAndGetJwtCookie(email, testPassword);
+        mockMvc.perform(delete("/users/me").cookie(jwt))
+                .andExpect(status().isOk());
+        assertTrue(userRepository.findById(id).isEmpty());
+    }
+}
@@ -0,0 +1,43 @@
+package com.fitlog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+// Use the test profile configuration (application-test.properties); log and trace every request
+@org.springframework.test.context.TestPropertySource(
+        locations = "classpath:application-test.properties",
+        properties = {"tracing.slow-request.threshold=PT0S", "tracing.slow-request.sample-rate=1.0"})
+public class SlowRequestLogTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void slowRequestIsLoggedWithItsSqlStatements(CapturedOutput output) throws Exception {
+        mockMvc.perform(post("/users/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"nobody@example.com\",\"password\":\"whatever\"}"))
+                .andExpect(status().isUnauthorized());
+        assertThat(output.getOut(), containsString("\"event\":\"slow_request\""));
+        assertThat(output.getOut(), containsString("\"route\":\"/users/login\""));
+        assertThat(output.getOut(), containsString("\"status\":401"));
+        assertThat(output.getOut(), containsString("\"sqlTraced\":true"));
+        // The user lookup by email, with the number of rows it returned
+        assertThat(output.getOut(), containsString("from users"));
+        assertThat(output.getOut(), containsString("\"rows\":0"));
+    }
+}
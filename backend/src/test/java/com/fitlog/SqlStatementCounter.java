@@ -0,0 +1,35 @@
+package com.fitlog;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Counts the SQL statements Hibernate prepares, so tests can cap the queries an endpoint runs.
+ * Requires hibernate.generate_statistics=true (set in application-test.properties).
+ *
+ * Usage:
+ *   counter.reset();
+ *   mockMvc.perform(get("/workouts")...);
+ *   assertEquals(2, counter.count());
+ *
+ * Caps are fixed numbers: an endpoint whose count grows with the data (N+1 lazy loading) fails the test.
+ */
+public class SqlStatementCounter {
+    private final Statistics statistics;
+
+    public SqlStatementCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.setStatisticsEnabled(true);
+    }
+
+    // Start counting from zero
+    public void reset() {
+        statistics.clear();
+    }
+
+    // Number of statements prepared since the last reset
+    public long count() {
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -5,6 +5,8 @@ import com.fitlog.entity.Exercise;
 import com.fitlog.repository.ExerciseRepository;
 import com.fitlog.repository.UserRepository;
 import com.fitlog.repository.WorkoutExerciseRepository;
+import com.fitlog.SqlStatementCounter;
+import jakarta.persistence.EntityManagerFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,6 +44,9 @@ public class ExerciseControllerTest {
     @Autowired
     private WorkoutExerciseRepository workoutExerciseRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private String testPassword = "testpassword";
 
     // Helper to extract JWT from Set-Cookie header
@@ -291,7 +296,8 @@ public class ExerciseControllerTest {
         mockMvc.perform(get("/exercises").cookie(jwt))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[?(@.name=='Jumping Jacks')]").exists())
-                .andExpect(jsonPath("$[?(@.name=='Crunch')]").exists());
+                .andExpect(jsonPath("$[?(@.name=='Crunch')]").exists())
+                .andExpect(jsonPath("$..password").doesNotExist());
     }
 
     @Test
@@ -319,7 +325,13 @@ public class ExerciseControllerTest {
                 .andExpect(jsonPath("$.name").value("Jumping Jacks"));
         mockMvc.perform(get("/exercises/" + own.getId()).cookie(jwt))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.name").value("Crunch"));
+                .andExpect(jsonPath("$.name").value("Crunch"))
+                .andExpect(jsonPath("$.public").value(false))
+                .andExpect(jsonPath("$.active").value(true))
+                // The creator is only identified: no email or password hash in the response
+                .andExpect(jsonPath("$.createdBy.id").value(own.getCreatedBy().getId().toString()))
+                .andExpect(jsonPath("$.createdBy.email").doesNotExist())
+                .andExpect(jsonPath("$..password").doesNotExist());
     }
 
     @Test
@@ -389,4 +401,31 @@ public class ExerciseControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message").value("Exercise deleted (soft)."));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void getExercisesRunsAFixedNumberOfQueries() throws Exception {
+        // One projection query (creators identified by foreign key); must not grow with the number of exercises or creators
+        final long getExercisesQueries = 1;
+        SqlStatementCounter sqlStatements = new SqlStatementCounter(entityManagerFactory);
+        String adminEmail = registerUser("admin");
+        setAdminRole(adminEmail);
+        MockCookie jwt = loginAndGetJwtCookie(adminEmail, testPassword);
+        for (int i = 1; i <= 6; i++) {
+            // Each exercise has a different creator, so eager creator loads would show up as extra selects
+            Exercise exercise = new Exercise();
+            exercise.setName("Lunge " + i);
+            exercise.setPublic(true);
+            exercise.setActive(true);
+            exercise.setCreatedBy(userRepository.findByEmail(registerUser("creator")).get());
+            exerciseRepository.save(exercise);
+            if (i == 1 || i == 6) {
+                sqlStatements.reset();
+                mockMvc.perform(get("/exercises").cookie(jwt))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.length()").value(i));
+                org.junit.jupiter.api.Assertions.assertEquals(getExercisesQueries, sqlStatements.count(),
+                        "GET /exercises with " + i + " exercises");
+            }
+        }
+    }
+}
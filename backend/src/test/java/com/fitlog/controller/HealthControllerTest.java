@@ -0,0 +1,138 @@
+package com.fitlog.controller;
+
+import com.fitlog.entity.EmailOutbox;
+import com.fitlog.repository.EmailOutboxRepository;
+import com.fitlog.service.EmailOutboxDispatcher;
+import com.fitlog.service.ReadinessCheck;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockCookie;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+// Use the test profile configuration (application-test.properties) to ensure tests run against H2, not the real database
+@org.springframework.test.context.TestPropertySource(locations = "classpath:application-test.properties")
+public class HealthControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @Autowired
+    private ReadinessCheck readinessCheck;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void livenessReturnsOk() throws Exception {
+        mockMvc.perform(get("/health")).andExpect(status().isOk()).andExpect(jsonPath("$.status").value("ok"));
+        mockMvc.perform(get("/health/live")).andExpect(status().isOk()).andExpect(jsonPath("$.status").value("ok"));
+    }
+
+    @Test
+    void readinessChecksDatabasePoolAndOutbox() throws Exception {
+        mockMvc.perform(get("/health/ready"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("ok"))
+                .andExpect(jsonPath("$.checks.database.status").value("UP"))
+                .andExpect(jsonPath("$.checks.pool.status").value("UP"))
+                .andExpect(jsonPath("$.checks.emailOutbox.status").value("UP"));
+    }
+
+    @Test
+    void healthPathsIgnoreInvalidTokens() throws Exception {
+        // The JWT filter would reject this token with 401; health probes skip it
+        mockMvc.perform(get("/health/ready").cookie(new MockCookie("jwt", "invalidtoken")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/health").cookie(new MockCookie("jwt", "invalidtoken")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void outboxBacklogDoesNotFailReadiness() throws Exception {
+        // An email due for two hours that this instance cannot send: another instance's dispatcher holds it
+        // (its row is locked), and it stays due, as under sustained throttling
+        EmailOutbox email = new EmailOutbox();
+        email.setRecipient("backlog@example.com");
+        email.setSubject("Backlog");
+        email.setBody("Body");
+        email.setAttempts(0);
+        email.setNextAttemptAt(LocalDateTime.now().minusHours(2));
+        email = emailOutboxRepository.save(email);
+        UUID id = email.getId();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread otherInstance = new Thread(() -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("SELECT id FROM email_outbox WHERE id = ? FOR UPDATE", id);
+            locked.countDown();
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        otherInstance.start();
+        try {
+            locked.await(30, TimeUnit.SECONDS);
+            emailOutboxDispatcher.dispatchPending();
+            org.junit.jupiter.api.Assertions.assertTrue(emailOutboxDispatcher.getDueLagSeconds() >= 7200);
+            Thread.sleep(400); // let a cached readiness result expire
+            ReadinessCheck.Result result = readinessCheck.check();
+            org.junit.jupiter.api.Assertions.assertTrue(result.ready());
+            Map<?, ?> outbox = (Map<?, ?>) result.checks().get("emailOutbox");
+            org.junit.jupiter.api.Assertions.assertEquals("UP", outbox.get("status"));
+            org.junit.jupiter.api.Assertions.assertTrue(((Number) outbox.get("dueLagSeconds")).longValue() >= 7200);
+        } finally {
+            release.countDown();
+            otherInstance.join();
+            emailOutboxRepository.deleteById(id);
+            emailOutboxDispatcher.dispatchPending();
+        }
+    }
+
+    @Test
+    void emailsWaitingForRetryDoNotFailReadiness() throws Exception {
+        // An email queued an hour ago whose next attempt is backed off (e.g. during a provider outage)
+        EmailOutbox email = new EmailOutbox();
+        email.setRecipient("retry@example.com");
+        email.setSubject("Retry");
+        email.setBody("Body");
+        email.setAttempts(3);
+        email.setNextAttemptAt(LocalDateTime.now().plusMinutes(30));
+        email = emailOutboxRepository.save(email);
+        jdbcTemplate.update("UPDATE email_outbox SET created_at = ? WHERE id = ?", LocalDateTime.now().minusHours(1), email.getId());
+        try {
+            emailOutboxDispatcher.dispatchPending();
+            org.junit.jupiter.api.Assertions.assertTrue(emailOutboxDispatcher.getLagSeconds() >= 3600);
+            org.junit.jupiter.api.Assertions.assertEquals(0, emailOutboxDispatcher.getDueLagSeconds());
+            Thread.sleep(400); // let a cached readiness result expire
+            ReadinessCheck.Result result = readinessCheck.check();
+            org.junit.jupiter.api.Assertions.assertTrue(result.ready());
+            org.junit.jupiter.api.Assertions.assertEquals("UP", ((Map<?, ?>) result.checks().get("emailOutbox")).get("status"));
+        } finally {
+            emailOutboxRepository.deleteById(email.getId());
+        }
+    }
+}
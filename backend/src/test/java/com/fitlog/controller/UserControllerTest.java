@@ -16,9 +16,16 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import java.util.UUID;
 
+import com.fitlog.JwtUtil;
+import com.fitlog.entity.User;
 import com.fitlog.repository.UserRepository;
+import com.fitlog.repository.EmailOutboxRepository;
+import com.fitlog.service.CapturingEmailTransport;
+import com.fitlog.service.EmailOutboxDispatcher;
+import com.fitlog.service.RefreshTokenService;
 
-@SpringBootTest
+// Every request sampled, so the rows in the heavy-hitters ranking are counted rather than estimated
+@SpringBootTest(properties = "tracing.slow-request.sample-rate=1")
 @AutoConfigureMockMvc
 // Use the test profile configuration (application-test.properties) to ensure tests run against H2, not the real database
 @org.springframework.test.context.TestPropertySource(locations = "classpath:application-test.properties")
@@ -32,6 +39,21 @@ public class UserControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @Autowired
+    private CapturingEmailTransport capturingEmailTransport;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     private String testEmail = "testuser@example.com";
     private String testPassword = "testpassword";
 
@@ -149,6 +171,31 @@ public class UserControllerTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void testRegistrationQueuesVerificationEmailInOutbox() throws Exception {
+        String testEmail = uniqueEmail("outbox");
+        var createUser = new java.util.HashMap<String, String>();
+        createUser.put("email", testEmail);
+        createUser.put("password", testPassword);
+        mockMvc.perform(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createUser)))
+                .andExpect(status().isCreated());
+        String code = userRepository.findByEmail(testEmail).get().getEmailVerificationCode();
+        // The email is queued with the user, not sent during the request
+        var queued = emailOutboxRepository.findAll().stream()
+                .filter(email -> email.getRecipient().equals(testEmail))
+                .toList();
+        assert queued.size() == 1;
+        assert queued.get(0).getBody().contains(code);
+        // The dispatcher hands it to the transport and marks it as sent
+        emailOutboxDispatcher.dispatchPending();
+        var sent = capturingEmailTransport.getCapturedFor(testEmail);
+        assert sent.size() == 1;
+        assert sent.get(0).body().contains(code);
+        assert emailOutboxRepository.findById(queued.get(0).getId()).get().getStatus() == com.fitlog.entity.EmailOutbox.Status.SENT;
+    }
+
     @Test
     void testRegisterWithExistingEmailReturns409() throws Exception {
         String testEmail = uniqueEmail("testuser");
@@ -466,6 +513,44 @@ public class UserControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void testHeavyHitters_AsAdmin_ListsUsersByCost() throws Exception {
+        String adminEmail = uniqueEmail("admin4");
+        var createAdmin = new java.util.HashMap<String, String>();
+        createAdmin.put("email", adminEmail);
+        createAdmin.put("password", "adminpass4");
+        mockMvc.perform(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createAdmin)))
+                .andExpect(status().isCreated());
+        verifyUser(adminEmail);
+        userRepository.findByEmail(adminEmail).ifPresent(user -> {
+            user.setRole("ADMIN");
+            userRepository.save(user);
+        });
+        MvcResult loginResult = mockMvc.perform(post("/users/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createAdmin)))
+                .andExpect(status().isOk())
+                .andReturn();
+        MockCookie jwt = new MockCookie("jwt", extractJwtFromSetCookie(loginResult));
+        // Generate some load as the admin
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/users").cookie(jwt)).andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/users/heavy-hitters")
+                .param("by", "rows")
+                .param("windowMinutes", "5")
+                .param("limit", "100")
+                .cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.by").value("ROWS"))
+                .andExpect(jsonPath("$.users[?(@.email=='" + adminEmail + "')].requests").value(org.hamcrest.Matchers.contains(org.hamcrest.Matchers.greaterThanOrEqualTo(3))))
+                .andExpect(jsonPath("$.users[?(@.email=='" + adminEmail + "')].responseBytes").value(org.hamcrest.Matchers.contains(org.hamcrest.Matchers.greaterThan(0))));
+        mockMvc.perform(get("/users/heavy-hitters").param("by", "bogus").cookie(jwt))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testDeleteUser_AsUser_Forbidden() throws Exception {
         String testEmail = uniqueEmail("testuser");
@@ -618,10 +703,130 @@ public class UserControllerTest {
         // Should set jwt=; Max-Age=0 (expired)
         assert setCookie != null && setCookie.contains("jwt=") && setCookie.contains("Max-Age=0");
 
-        // 5. Try to access a protected endpoint with the old JWT (should fail)
+        // 5. Try to access a protected endpoint with the old JWT (should fail: the token was revoked)
         mockMvc.perform(get("/users")
                 .cookie(jwtCookie))
-                .andExpect(status().isForbidden()); // Not admin, so forbidden
+                .andExpect(status().isUnauthorized());
+    }
+
+    // Helper to extract a named cookie value from all Set-Cookie headers
+    private String extractCookie(MvcResult result, String name) {
+        for (String header : result.getResponse().getHeaders("Set-Cookie")) {
+            String first = header.split(";")[0].trim();
+            if (first.startsWith(name + "=")) {
+                return first.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    @Test
+    void testRefreshRotatesTokenAndRejectsReuse() throws Exception {
+        String testEmail = uniqueEmail("refreshuser");
+        var createUser = new java.util.HashMap<String, String>();
+        createUser.put("email", testEmail);
+        createUser.put("password", testPassword);
+        mockMvc.perform(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createUser)))
+                .andExpect(status().isCreated());
+        verifyUser(testEmail);
+        MvcResult loginResult = mockMvc.perform(post("/users/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createUser)))
+                .andExpect(status().isOk())
+                .andReturn();
+        String refreshToken = extractCookie(loginResult, "refresh_token");
+        assert refreshToken != null && !refreshToken.isBlank();
+
+        // Refresh returns a new access token and a new refresh token
+        MvcResult refreshResult = mockMvc.perform(post("/users/refresh")
+                .cookie(new MockCookie("refresh_token", refreshToken)))
+                .andExpect(status().isOk())
+                .andReturn();
+        String newJwt = extractCookie(refreshResult, "jwt");
+        String newRefreshToken = extractCookie(refreshResult, "refresh_token");
+        assert newJwt != null && !newJwt.isBlank();
+        assert newRefreshToken != null && !newRefreshToken.equals(refreshToken);
+        mockMvc.perform(get("/workouts")
+                .cookie(new MockCookie("jwt", newJwt)))
+                .andExpect(status().isOk());
+
+        // Reusing the rotated token fails and revokes the new one as well
+        mockMvc.perform(post("/users/refresh")
+                .cookie(new MockCookie("refresh_token", refreshToken)))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/users/refresh")
+                .cookie(new MockCookie("refresh_token", newRefreshToken)))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testConcurrentRefreshesWithTheSameTokenRotateItOnce() throws Exception {
+        String testEmail = uniqueEmail("concurrentrefresh");
+        var createUser = new java.util.HashMap<String, String>();
+        createUser.put("email", testEmail);
+        createUser.put("password", testPassword);
+        mockMvc.perform(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createUser)))
+                .andExpect(status().isCreated());
+        User user = userRepository.findByEmail(testEmail).get();
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 20; round++) {
+                // Two requests sent at once with the same cookie (e.g. two tabs refreshing together)
+                String refreshToken = refreshTokenService.issue(user);
+                java.util.concurrent.CyclicBarrier start = new java.util.concurrent.CyclicBarrier(2);
+                java.util.concurrent.Callable<Integer> refresh = () -> {
+                    start.await();
+                    return mockMvc.perform(post("/users/refresh")
+                            .cookie(new MockCookie("refresh_token", refreshToken)))
+                            .andReturn().getResponse().getStatus();
+                };
+                var first = executor.submit(refresh);
+                var second = executor.submit(refresh);
+                java.util.List<Integer> statuses = java.util.List.of(first.get(), second.get());
+                // Never two new tokens from one: at most one succeeds, the other gets 401
+                org.junit.jupiter.api.Assertions.assertTrue(statuses.stream().allMatch(s -> s == 200 || s == 401), statuses.toString());
+                org.junit.jupiter.api.Assertions.assertTrue(statuses.stream().filter(s -> s == 200).count() <= 1, statuses.toString());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRefreshWithExpiredAccessTokenSucceeds() throws Exception {
+        String testEmail = uniqueEmail("expireduser");
+        var createUser = new java.util.HashMap<String, String>();
+        createUser.put("email", testEmail);
+        createUser.put("password", testPassword);
+        mockMvc.perform(post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createUser)))
+                .andExpect(status().isCreated());
+        verifyUser(testEmail);
+        MvcResult loginResult = mockMvc.perform(post("/users/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createUser)))
+                .andExpect(status().isOk())
+                .andReturn();
+        String refreshToken = extractCookie(loginResult, "refresh_token");
+        User user = userRepository.findByEmail(testEmail).get();
+        String expiredJwt = jwtUtil.generateToken(user.getId(), testEmail, user.getRole(), java.time.Duration.ofMinutes(-1));
+        // Browsers still send the expired access token cookie along with the refresh token
+        mockMvc.perform(get("/workouts").cookie(new MockCookie("jwt", expiredJwt)))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/users/refresh")
+                .cookie(new MockCookie("jwt", expiredJwt), new MockCookie("refresh_token", refreshToken)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testRefreshWithoutCookieReturns401() throws Exception {
+        mockMvc.perform(post("/users/refresh"))
+                .andExpect(status().isUnauthorized());
     }
 
     @Test
@@ -8,6 +8,9 @@ import com.fitlog.repository.WorkoutExerciseRepository;
 import com.fitlog.entity.Exercise;
 import com.fitlog.repository.ExerciseRepository;
 import com.fitlog.entity.WorkoutExercise;
+import com.fitlog.entity.User;
+import com.fitlog.SqlStatementCounter;
+import jakarta.persistence.EntityManagerFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -49,6 +52,9 @@ public class WorkoutControllerTest {
     @Autowired
     private ExerciseRepository exerciseRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private String testPassword = "testpassword";
 
     // Helper to extract JWT from Set-Cookie header
@@ -102,6 +108,30 @@ public class WorkoutControllerTest {
         workoutRepository.deleteAll();
     }
 
+    // Helper to create a workout with exercises created by the given user
+    private void createWorkoutWithExercises(User user, User exerciseOwner, LocalDate date, int exerciseCount) {
+        Workout workout = new Workout();
+        workout.setDate(date);
+        workout.setNotes("Workout " + date);
+        workout.setUser(user);
+        workout = workoutRepository.save(workout);
+        for (int i = 0; i < exerciseCount; i++) {
+            Exercise exercise = new Exercise();
+            exercise.setName("Squat-" + UUID.randomUUID());
+            exercise.setMuscleGroups("Legs");
+            exercise.setPublic(true);
+            exercise.setActive(true);
+            exercise.setCreatedBy(exerciseOwner);
+            exercise = exerciseRepository.save(exercise);
+            WorkoutExercise we = new WorkoutExercise();
+            we.setWorkout(workout);
+            we.setExercise(exercise);
+            we.setPosition(i + 1);
+            we.setSets("[{\"reps\":5,\"weight\":100}]");
+            workoutExerciseRepository.save(we);
+        }
+    }
+
     @Test
     void userCanCreateWorkout() throws Exception {
         String email = registerUser("user");
@@ -152,6 +182,64 @@ public class WorkoutControllerTest {
                 .andExpect(jsonPath("$.notes").value("Updated notes"));
     }
 
+    @Test
+    void updateWorkoutWithStaleIfMatchIsRejected() throws Exception {
+        String email = registerUser("user");
+        MockCookie jwt = loginAndGetJwtCookie(email, testPassword);
+        Workout workout = new Workout();
+        workout.setDate(LocalDate.now());
+        workout.setNotes("Initial");
+        workout.setUser(userRepository.findByEmail(email).get());
+        workout = workoutRepository.save(workout);
+        // Two clients read version 0; the first one's update goes through
+        mockMvc.perform(put("/workouts/" + workout.getId())
+                .cookie(jwt)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("date", LocalDate.now().toString(), "notes", "First"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.version").value(1));
+        mockMvc.perform(put("/workouts/" + workout.getId())
+                .cookie(jwt)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("date", LocalDate.now().toString(), "notes", "Second"))))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string("ETag", "\"1\""));
+        mockMvc.perform(get("/workouts/" + workout.getId()).cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.notes").value("First"));
+    }
+
+    @Test
+    void userCannotMoveWorkoutOntoDateOfAnotherWorkout() throws Exception {
+        String email = registerUser("user");
+        MockCookie jwt = loginAndGetJwtCookie(email, testPassword);
+        User user = userRepository.findByEmail(email).get();
+        // Two workouts on consecutive days
+        Workout today = new Workout();
+        today.setDate(LocalDate.now());
+        today.setUser(user);
+        workoutRepository.save(today);
+        Workout tomorrow = new Workout();
+        tomorrow.setDate(LocalDate.now().plusDays(1));
+        tomorrow.setUser(user);
+        tomorrow = workoutRepository.save(tomorrow);
+        Map<String, Object> req = Map.of(
+                "date", LocalDate.now().toString(),
+                "notes", "Moved"
+        );
+        mockMvc.perform(put("/workouts/" + tomorrow.getId())
+                .cookie(jwt)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isConflict());
+        org.junit.jupiter.api.Assertions.assertEquals(LocalDate.now().plusDays(1),
+                workoutRepository.findById(tomorrow.getId()).get().getDate());
+    }
+
     @Test
     void userCannotUpdateOthersWorkout() throws Exception {
         String email = registerUser("user");
@@ -204,6 +292,17 @@ public class WorkoutControllerTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void deleteOrGetMissingWorkoutReturns404() throws Exception {
+        String email = registerUser("user");
+        MockCookie jwt = loginAndGetJwtCookie(email, testPassword);
+        UUID missingId = UUID.randomUUID();
+        mockMvc.perform(delete("/workouts/" + missingId).cookie(jwt))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/workouts/" + missingId).cookie(jwt))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void userCanGetOwnWorkouts() throws Exception {
         String email = registerUser("user");
@@ -228,6 +327,31 @@ public class WorkoutControllerTest {
                 .andExpect(jsonPath("$[0].exercises").isArray());
     }
 
+    @Test
+    void userCanGetOwnWorkoutsInADateRange() throws Exception {
+        String email = registerUser("range");
+        MockCookie jwt = loginAndGetJwtCookie(email, testPassword);
+        User user = userRepository.findByEmail(email).get();
+        LocalDate today = LocalDate.now();
+        createWorkoutWithExercises(user, user, today, 2);
+        createWorkoutWithExercises(user, user, today.minusDays(40), 1);
+        createWorkoutWithExercises(user, user, today.minusDays(400), 1);
+        mockMvc.perform(get("/workouts").param("from", today.minusDays(60).toString()).param("to", today.toString()).cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[?(@.date=='" + today + "')].exercises[*].position", org.hamcrest.Matchers.containsInAnyOrder(1, 2)))
+                .andExpect(jsonPath("$[?(@.date=='" + today.minusDays(400) + "')]").doesNotExist());
+        // Open-ended ranges
+        mockMvc.perform(get("/workouts").param("to", today.minusDays(30).toString()).cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(get("/workouts").param("from", today.minusDays(10).toString()).cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        mockMvc.perform(get("/workouts").param("from", "last month").cookie(jwt))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void userCanGetOwnWorkoutById() throws Exception {
         String email = registerUser("user");
@@ -331,4 +455,38 @@ public class WorkoutControllerTest {
         // The id should be the same, meaning the same workout is returned
         org.junit.jupiter.api.Assertions.assertEquals(firstId, secondId, "Should return the same workout for duplicate date");
     }
-} 
\ No newline at end of file
+
+    @Test
+    void workoutReadsRunAFixedNumberOfQueries() throws Exception {
+        // Query caps per endpoint; they must not grow with the number of workouts or exercises
+        final long getWorkoutsQueries = 2;   // workouts (with owner) + all their exercises
+        final long getWorkoutQueries = 2;    // workout (with owner) + its exercises
+        SqlStatementCounter sqlStatements = new SqlStatementCounter(entityManagerFactory);
+        String email = registerUser("queries");
+        MockCookie jwt = loginAndGetJwtCookie(email, testPassword);
+        User user = userRepository.findByEmail(email).get();
+        createWorkoutWithExercises(user, user, LocalDate.now(), 1);
+
+        sqlStatements.reset();
+        mockMvc.perform(get("/workouts").cookie(jwt)).andExpect(status().isOk());
+        org.junit.jupiter.api.Assertions.assertEquals(getWorkoutsQueries, sqlStatements.count(), "GET /workouts with 1 workout");
+
+        // More workouts, more exercises per workout, exercises created by several users
+        for (int day = 1; day <= 5; day++) {
+            User exerciseOwner = userRepository.findByEmail(registerUser("owner")).get();
+            createWorkoutWithExercises(user, exerciseOwner, LocalDate.now().minusDays(day), 3);
+        }
+        sqlStatements.reset();
+        mockMvc.perform(get("/workouts").cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(6));
+        org.junit.jupiter.api.Assertions.assertEquals(getWorkoutsQueries, sqlStatements.count(), "GET /workouts with 6 workouts");
+
+        Workout workout = workoutRepository.findByUserIdAndDate(user.getId(), LocalDate.now().minusDays(1)).get();
+        sqlStatements.reset();
+        mockMvc.perform(get("/workouts/" + workout.getId()).cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.exercises.length()").value(3));
+        org.junit.jupiter.api.Assertions.assertEquals(getWorkoutQueries, sqlStatements.count(), "GET /workouts/{id}");
+    }
+}
@@ -8,6 +8,8 @@ import com.fitlog.repository.WorkoutRepository;
 import com.fitlog.repository.ExerciseRepository;
 import com.fitlog.repository.UserRepository;
 import com.fitlog.repository.WorkoutExerciseRepository;
+import com.fitlog.SqlStatementCounter;
+import jakarta.persistence.EntityManagerFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +19,8 @@ import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockCookie;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.time.LocalDate;
 import java.util.HashMap;
@@ -49,6 +53,9 @@ public class WorkoutExerciseControllerTest {
     @Autowired
     private WorkoutExerciseRepository workoutExerciseRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private String testPassword = "testpassword";
 
     // Helper to extract JWT from Set-Cookie header
@@ -166,6 +173,26 @@ public class WorkoutExerciseControllerTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void createWorkoutExerciseWithMissingExerciseReturns404() throws Exception {
+        String email = registerUser("user");
+        MockCookie jwt = loginAndGetJwtCookie(email, testPassword);
+        Workout workout = createWorkout(email);
+        Map<String, Object> req = Map.of(
+                "workoutId", workout.getId(),
+                "exerciseId", UUID.randomUUID(),
+                "position", 1,
+                "sets", "[{\"reps\":10,\"weight\":0}]",
+                "notes", "Missing exercise"
+        );
+        mockMvc.perform(post("/workout_exercises")
+                .cookie(jwt)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Exercise not found."));
+    }
+
     @Test
     void userCanUpdateOwnWorkoutExercise() throws Exception {
         String email = registerUser("user");
@@ -195,6 +222,90 @@ public class WorkoutExerciseControllerTest {
                 .andExpect(jsonPath("$.position").value(2));
     }
 
+    // Helper to create a workout exercise with the given sets in a new workout of the user
+    private WorkoutExercise createWorkoutExercise(String email, String sets) {
+        WorkoutExercise we = new WorkoutExercise();
+        we.setWorkout(createWorkout(email));
+        we.setExercise(createExercise(email));
+        we.setPosition(1);
+        we.setSets(sets);
+        we.setNotes("Initial");
+        return workoutExerciseRepository.save(we);
+    }
+
+    // Helper to PUT new sets, conditional on the If-Match version (if any), with the sets the client started from (if any)
+    private ResultActions putSets(MockCookie jwt, UUID id, String ifMatch, String baseSets, String sets) throws Exception {
+        Map<String, Object> req = new HashMap<>();
+        req.put("sets", sets);
+        if (baseSets != null) {
+            req.put("baseSets", baseSets);
+        }
+        MockHttpServletRequestBuilder request = put("/workout_exercises/" + id)
+                .cookie(jwt)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req));
+        if (ifMatch != null) {
+            request.header("If-Match", ifMatch);
+        }
+        return mockMvc.perform(request);
+    }
+
+    @Test
+    void conditionalUpdateOfTheCurrentVersionSucceeds() throws Exception {
+        String email = registerUser("user");
+        MockCookie jwt = loginAndGetJwtCookie(email, testPassword);
+        WorkoutExercise we = createWorkoutExercise(email, "[{\"reps\":5}]");
+        mockMvc.perform(get("/workout_exercises/" + we.getId()).cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(jsonPath("$.version").value(0));
+        putSets(jwt, we.getId(), "\"0\"", null, "[{\"reps\":5},{\"reps\":6}]")
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.version").value(1))
+                .andExpect(jsonPath("$.sets").value("[{\"reps\":5},{\"reps\":6}]"));
+    }
+
+    @Test
+    void concurrentAppendsToTheSetsAreMerged() throws Exception {
+        String email = registerUser("user");
+        MockCookie jwt = loginAndGetJwtCookie(email, testPassword);
+        String base = "[{\"reps\":5}]";
+        WorkoutExercise we = createWorkoutExercise(email, base);
+        // Phone and watch both read version 0, the phone writes first
+        putSets(jwt, we.getId(), "\"0\"", base, "[{\"reps\":5},{\"reps\":6}]")
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+        putSets(jwt, we.getId(), "\"0\"", base, "[{\"reps\":5},{\"reps\":7}]")
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(jsonPath("$.sets").value("[{\"reps\":5},{\"reps\":6},{\"reps\":7}]"));
+    }
+
+    @Test
+    void conflictingConcurrentUpdatesAreRejected() throws Exception {
+        String email = registerUser("user");
+        MockCookie jwt = loginAndGetJwtCookie(email, testPassword);
+        String base = "[{\"reps\":5}]";
+        WorkoutExercise we = createWorkoutExercise(email, base);
+        putSets(jwt, we.getId(), "\"0\"", base, "[{\"reps\":5},{\"reps\":6}]")
+                .andExpect(status().isOk());
+        // An edited set does not merge; the response carries the current state
+        putSets(jwt, we.getId(), "\"0\"", base, "[{\"reps\":8}]")
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.error").exists())
+                .andExpect(jsonPath("$.sets").value("[{\"reps\":5},{\"reps\":6}]"));
+        // Neither do appends without the sets they started from
+        putSets(jwt, we.getId(), "\"0\"", null, "[{\"reps\":5},{\"reps\":7}]")
+                .andExpect(status().isPreconditionFailed());
+        putSets(jwt, we.getId(), "not-an-etag", null, "[]")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid If-Match header."));
+        org.junit.jupiter.api.Assertions.assertEquals("[{\"reps\":5},{\"reps\":6}]",
+                workoutExerciseRepository.findById(we.getId()).get().getSets());
+    }
+
     @Test
     void userCannotUpdateOthersWorkoutExercise() throws Exception {
         String email = registerUser("user");
@@ -288,7 +399,8 @@ public class WorkoutExerciseControllerTest {
         mockMvc.perform(get("/workout_exercises/by_workout/" + workout.getId()).cookie(jwt))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[?(@.notes=='Mine')]").exists())
-                .andExpect(jsonPath("$[?(@.notes=='Not mine')]").doesNotExist());
+                .andExpect(jsonPath("$[?(@.notes=='Not mine')]").doesNotExist())
+                .andExpect(jsonPath("$..password").doesNotExist());
     }
 
     @Test
@@ -307,7 +419,13 @@ public class WorkoutExerciseControllerTest {
         we = workoutExerciseRepository.save(we);
         mockMvc.perform(get("/workout_exercises/" + we.getId()).cookie(jwt))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.notes").value("Mine"));
+                .andExpect(jsonPath("$.notes").value("Mine"))
+                .andExpect(jsonPath("$.workoutId").value(workout.getId().toString()))
+                .andExpect(jsonPath("$.exercise.name").value(exercise.getName()))
+                .andExpect(jsonPath("$.exercise.isPublic").value(true))
+                // Neither the workout owner nor the exercise creator is serialized
+                .andExpect(jsonPath("$.workout").doesNotExist())
+                .andExpect(jsonPath("$..password").doesNotExist());
     }
 
     @Test
@@ -328,4 +446,31 @@ public class WorkoutExerciseControllerTest {
         mockMvc.perform(get("/workout_exercises/" + we.getId()).cookie(jwt))
                 .andExpect(status().isForbidden());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void getWorkoutExercisesByWorkoutRunsAFixedNumberOfQueries() throws Exception {
+        // Ownership check + workout exercises (with workout, exercise and their users); must not grow with the data
+        final long byWorkoutQueries = 2;
+        SqlStatementCounter sqlStatements = new SqlStatementCounter(entityManagerFactory);
+        String email = registerUser("queries");
+        MockCookie jwt = loginAndGetJwtCookie(email, testPassword);
+        Workout workout = createWorkout(email);
+        for (int i = 1; i <= 6; i++) {
+            // Exercises created by different users, so eager creator loads would show up as extra selects
+            WorkoutExercise we = new WorkoutExercise();
+            we.setWorkout(workout);
+            we.setExercise(createExercise(registerUser("owner")));
+            we.setPosition(i);
+            we.setSets("[{\"reps\":10,\"weight\":0}]");
+            workoutExerciseRepository.save(we);
+            if (i == 1 || i == 6) {
+                sqlStatements.reset();
+                mockMvc.perform(get("/workout_exercises/by_workout/" + workout.getId()).cookie(jwt))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.length()").value(i));
+                org.junit.jupiter.api.Assertions.assertEquals(byWorkoutQueries, sqlStatements.count(),
+                        "GET /workout_exercises/by_workout/{id} with " + i + " exercises");
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.fitlog.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.web.MockCookie;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Routing between two in-memory H2 databases standing in for the primary and its replicas
+public class ReplicaRoutingDataSourceTest {
+
+    // An H2 database with a one-row table naming it, so a query shows where it ran
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbc.update("INSERT INTO node VALUES (?)", name);
+        // Lag reported to ReplicaLagMonitor, see laggingReplicasAreSkipped
+        jdbc.execute("CREATE TABLE replica_lag (seconds DOUBLE)");
+        jdbc.update("INSERT INTO replica_lag VALUES (0)");
+        return dataSource;
+    }
+
+    private final DataSource primary = database("primary");
+    private final DataSource replica = database("replica");
+
+    private static TransactionTemplate transactions(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        template.setReadOnly(readOnly);
+        return template;
+    }
+
+    // Name of the database a read-only (or read-write) transaction runs on
+    private static String nodeOf(DataSource dataSource, boolean readOnly) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        return transactions(dataSource, readOnly).execute(status -> jdbc.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    // Start a request sending the given cookies; returns its response
+    private static MockHttpServletResponse startRequest(jakarta.servlet.http.Cookie... cookies) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (cookies.length > 0) {
+            request.setCookies(cookies);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        return response;
+    }
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(5), Duration.ofSeconds(10));
+        routing.reportLag(0, Duration.ZERO);
+        assertEquals("replica", nodeOf(routing, true));
+    }
+
+    @Test
+    void writesAndWorkOutsideTransactionsUseThePrimary() {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(5), Duration.ofSeconds(10));
+        routing.reportLag(0, Duration.ZERO);
+        assertEquals("primary", nodeOf(routing, false));
+        assertEquals("primary", new JdbcTemplate(routing).queryForObject("SELECT name FROM node", String.class));
+    }
+
+    @Test
+    void clientsReadTheirOwnWritesFromThePrimaryOnEveryInstance() throws InterruptedException {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(5), Duration.ofMillis(300));
+        routing.reportLag(0, Duration.ZERO);
+        // Another instance of the application, sharing nothing but the databases
+        ReplicaRoutingDataSource otherInstance = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(5), Duration.ofMillis(300));
+        otherInstance.reportLag(0, Duration.ZERO);
+
+        MockHttpServletResponse response = startRequest();
+        nodeOf(routing, false);
+        // Reads later in the same request stay on the primary
+        assertEquals("primary", nodeOf(routing, true));
+        MockCookie primaryUntil = (MockCookie) response.getCookie(ReplicaRoutingDataSource.PRIMARY_UNTIL_COOKIE);
+        assertNotNull(primaryUntil);
+        assertEquals(1, primaryUntil.getMaxAge());
+
+        // The client's next requests read from the primary whichever instance serves them; other clients still use the replica
+        startRequest(primaryUntil);
+        assertEquals("primary", nodeOf(otherInstance, true));
+        assertEquals("primary", nodeOf(routing, true));
+        startRequest();
+        assertEquals("replica", nodeOf(otherInstance, true));
+        Thread.sleep(400);
+        startRequest(primaryUntil);
+        assertEquals("replica", nodeOf(otherInstance, true));
+    }
+
+    @Test
+    void malformedWindowCookiesAreIgnored() {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(5), Duration.ofSeconds(10));
+        routing.reportLag(0, Duration.ZERO);
+        startRequest(new MockCookie(ReplicaRoutingDataSource.PRIMARY_UNTIL_COOKIE, "soon"));
+        assertEquals("replica", nodeOf(routing, true));
+    }
+
+    @Test
+    void laggingOrUncheckedReplicasAreSkipped() {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(5), Duration.ofSeconds(10));
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(routing, "SELECT seconds FROM replica_lag", new SimpleMeterRegistry());
+        // Not checked yet
+        assertEquals("primary", nodeOf(routing, true));
+        monitor.checkLag();
+        assertEquals(Duration.ZERO, routing.lag(0));
+        assertEquals("replica", nodeOf(routing, true));
+        // Behind by more than max-lag
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET seconds = 30");
+        monitor.checkLag();
+        assertEquals(Duration.ofSeconds(30), routing.lag(0));
+        assertEquals("primary", nodeOf(routing, true));
+        // Lag cannot be measured
+        new JdbcTemplate(replica).execute("DROP TABLE replica_lag");
+        monitor.checkLag();
+        assertNull(routing.lag(0));
+        assertEquals("primary", nodeOf(routing, true));
+    }
+
+    @Test
+    void readsAreSpreadOverTheHealthyReplicas() {
+        DataSource secondReplica = database("replica2");
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica, secondReplica), Duration.ofSeconds(5), Duration.ofSeconds(10));
+        routing.reportLag(0, Duration.ZERO);
+        routing.reportLag(1, Duration.ofSeconds(1));
+        Set<String> nodes = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(nodeOf(routing, true));
+        }
+        assertEquals(Set.of("replica", "replica2"), nodes);
+        // Only the replica within the tolerance left
+        routing.reportLag(1, Duration.ofSeconds(6));
+        for (int i = 0; i < 4; i++) {
+            assertEquals("replica", nodeOf(routing, true));
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.fitlog.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitlog.JwtUtil;
+import com.fitlog.entity.Exercise;
+import com.fitlog.entity.User;
+import com.fitlog.entity.Workout;
+import com.fitlog.entity.WorkoutExercise;
+import com.fitlog.repository.ExerciseRepository;
+import com.fitlog.repository.UserRepository;
+import com.fitlog.repository.WorkoutExerciseRepository;
+import com.fitlog.repository.WorkoutRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockCookie;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// The application with a read replica in rotation. The replica is an empty database, so any read routed to it
+// fails: the tests show which reads must stay on the primary.
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+    "datasource.replicas.urls=jdbc:h2:mem:routing-replica;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+    "datasource.replicas.lag-query=SELECT 0"
+})
+@AutoConfigureMockMvc
+// Use the test profile configuration (application-test.properties) to ensure tests run against H2, not the real database
+@org.springframework.test.context.TestPropertySource(locations = "classpath:application-test.properties")
+public class ReplicaRoutingIntegrationTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private WorkoutExerciseRepository workoutExerciseRepository;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+    private MockCookie jwt;
+
+    @BeforeEach
+    void setUp() {
+        // Put the replica in rotation without waiting for the scheduled check
+        replicaLagMonitor.checkLag();
+        // Saved directly: save() runs in a read-write transaction, so on the primary
+        user = new User();
+        user.setEmail("replica+" + UUID.randomUUID().toString().substring(0, 8) + "@example.com");
+        user.setPassword("unused");
+        user.setRole("USER");
+        user.setEmailVerified(true);
+        user = userRepository.save(user);
+        jwt = new MockCookie("jwt", jwtUtil.generateToken(user.getId(), user.getEmail(), user.getRole()));
+    }
+
+    private Workout saveWorkout() {
+        Workout workout = new Workout();
+        workout.setUser(user);
+        workout.setDate(LocalDate.of(2024, 1, 1).plusDays((long) (Math.random() * 3000)));
+        workout.setNotes("Before");
+        return workoutRepository.save(workout);
+    }
+
+    @Test
+    void repositoryReadsOutsideTransactionsUseTheReplica() {
+        UUID id = saveWorkout().getId();
+        // The test's mock request has just written, so would read from the primary; start a fresh one
+        RequestContextHolder.resetRequestAttributes();
+        // Spring Data runs findById in a read-only transaction of its own, which is routed to the replica
+        org.junit.jupiter.api.Assertions.assertThrows(DataAccessException.class, () -> workoutRepository.findById(id));
+    }
+
+    @Test
+    void workoutUpdatesReadFromThePrimary() throws Exception {
+        Workout workout = saveWorkout();
+        Map<String, Object> req = Map.of("date", workout.getDate().toString(), "notes", "After");
+        mockMvc.perform(put("/workouts/" + workout.getId())
+                .cookie(jwt)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes").value("After"))
+                .andExpect(cookie().exists(ReplicaRoutingDataSource.PRIMARY_UNTIL_COOKIE));
+    }
+
+    @Test
+    void updatesOfOtherUsersWorkoutsAreCheckedOnThePrimary() throws Exception {
+        Workout workout = saveWorkout();
+        User other = new User();
+        other.setEmail("other+" + UUID.randomUUID().toString().substring(0, 8) + "@example.com");
+        other.setPassword("unused");
+        other.setRole("USER");
+        other = userRepository.save(other);
+        MockCookie otherJwt = new MockCookie("jwt", jwtUtil.generateToken(other.getId(), other.getEmail(), other.getRole()));
+        // Telling "not yours" (403) from "not found" (404) takes an existsById, which must not see a stale replica
+        Map<String, Object> req = Map.of("date", workout.getDate().toString(), "notes", "After");
+        mockMvc.perform(put("/workouts/" + workout.getId())
+                .cookie(otherJwt)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isForbidden());
+    }
+
+    private Exercise saveExercise() {
+        Exercise exercise = new Exercise();
+        exercise.setName("Row " + UUID.randomUUID());
+        exercise.setPublic(true);
+        exercise.setActive(true);
+        exercise.setCreatedBy(user);
+        return exerciseRepository.save(exercise);
+    }
+
+    @Test
+    void exerciseUpdatesReadFromThePrimary() throws Exception {
+        Exercise exercise = saveExercise();
+        // Not served from the second-level cache: the read has to reach a database
+        entityManagerFactory.getCache().evictAll();
+        Map<String, Object> req = Map.of("name", exercise.getName(), "isPublic", false, "muscleGroups", "Back", "notes", "After");
+        mockMvc.perform(put("/exercises/" + exercise.getId())
+                .cookie(jwt)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes").value("After"));
+    }
+
+    @Test
+    void exerciseDeletesReadFromThePrimary() throws Exception {
+        Exercise exercise = saveExercise();
+        entityManagerFactory.getCache().evictAll();
+        mockMvc.perform(delete("/exercises/" + exercise.getId()).cookie(jwt))
+                .andExpect(status().isOk());
+        org.junit.jupiter.api.Assertions.assertFalse(
+                exerciseRepository.findViewById(exercise.getId()).orElseThrow().isActive());
+    }
+
+    @Test
+    void workoutExerciseUpdatesReadFromThePrimary() throws Exception {
+        Workout workout = saveWorkout();
+        Exercise exercise = saveExercise();
+        WorkoutExercise workoutExercise = new WorkoutExercise();
+        workoutExercise.setWorkout(workout);
+        workoutExercise.setWorkoutDate(workout.getDate());
+        workoutExercise.setExercise(exercise);
+        workoutExercise.setPosition(1);
+        workoutExercise.setSets("[]");
+        workoutExercise = workoutExerciseRepository.save(workoutExercise);
+
+        Map<String, Object> req = Map.of("sets", "[{\"reps\":5}]", "notes", "After");
+        mockMvc.perform(put("/workout_exercises/" + workoutExercise.getId())
+                .cookie(jwt)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes").value("After"));
+    }
+}
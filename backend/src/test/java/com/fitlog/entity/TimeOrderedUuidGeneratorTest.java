@@ -0,0 +1,71 @@
+package com.fitlog.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeOrderedUuidGeneratorTest {
+    // Byte-wise order, as PostgreSQL compares uuid values
+    private static int compareUnsigned(UUID a, UUID b) {
+        int msb = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return msb != 0 ? msb : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    @Test
+    void idsAreVersion7WithTheCurrentTime() {
+        long before = System.currentTimeMillis();
+        UUID id = TimeOrderedUuidGenerator.next();
+        long after = System.currentTimeMillis();
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        // The timestamp may run ahead of the clock only when a millisecond's sequence overflowed
+        long millis = TimeOrderedUuidGenerator.epochMillis(id);
+        assertTrue(millis >= before && millis <= after + 1, "timestamp " + millis + " not in [" + before + ", " + after + "]");
+        // Still a standard UUID string, parsed back to the same value
+        assertEquals(id, UUID.fromString(id.toString()));
+    }
+
+    @Test
+    void idsIncreaseEvenWithinTheSameMillisecond() {
+        // Far more ids than fit in one millisecond's 12-bit sequence
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            ids.add(TimeOrderedUuidGenerator.next());
+        }
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(compareUnsigned(ids.get(i - 1), ids.get(i)) < 0, "id " + i + " is not greater than the previous one");
+        }
+    }
+
+    @Test
+    void concurrentGenerationNeverRepeatsAnId() throws InterruptedException {
+        ConcurrentLinkedQueue<UUID> ids = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    ids.add(TimeOrderedUuidGenerator.next());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40_000, new HashSet<>(ids).size());
+    }
+
+    @Test
+    void fieldsAreLaidOutAsInTheSpecification() {
+        // RFC 9562 test vector: 2022-02-22 19:22:22.000 UTC
+        UUID id = TimeOrderedUuidGenerator.of(0x017F22E279B0L, 0xCC3, 0x18C4DC0C0C07398FL);
+        assertEquals("017f22e2-79b0-7cc3-98c4-dc0c0c07398f", id.toString());
+    }
+}
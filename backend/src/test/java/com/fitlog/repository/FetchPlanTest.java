@@ -0,0 +1,103 @@
+package com.fitlog.repository;
+
+import com.fitlog.entity.Exercise;
+import com.fitlog.entity.User;
+import com.fitlog.entity.Workout;
+import com.fitlog.entity.WorkoutExercise;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Associations are lazy; each repository method loads exactly the associations named in its fetch plan.
+// Runs outside a transaction, so the returned entities are detached and nothing else can be loaded later.
+@SpringBootTest
+// Use the test profile configuration (application-test.properties) to ensure tests run against H2, not the real database
+@org.springframework.test.context.TestPropertySource(locations = "classpath:application-test.properties")
+public class FetchPlanTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private WorkoutExerciseRepository workoutExerciseRepository;
+
+    private User user;
+    private Workout workout;
+    private Exercise exercise;
+    private WorkoutExercise workoutExercise;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("fetch+" + UUID.randomUUID().toString().substring(0, 8) + "@example.com");
+        user.setPassword("hash");
+        user.setRole("USER");
+        user = userRepository.save(user);
+        exercise = new Exercise();
+        exercise.setName("Fetch Plan Row-" + UUID.randomUUID());
+        exercise.setPublic(true);
+        exercise.setActive(true);
+        exercise.setCreatedBy(user);
+        exercise = exerciseRepository.save(exercise);
+        workout = new Workout();
+        workout.setDate(LocalDate.now());
+        workout.setUser(user);
+        workout = workoutRepository.save(workout);
+        workoutExercise = new WorkoutExercise();
+        workoutExercise.setWorkout(workout);
+        workoutExercise.setExercise(exercise);
+        workoutExercise.setPosition(1);
+        workoutExercise = workoutExerciseRepository.save(workoutExercise);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        workoutExerciseRepository.delete(workoutExercise);
+        workoutRepository.delete(workout);
+        exerciseRepository.delete(exercise);
+        userRepository.delete(user);
+    }
+
+    @Test
+    void workoutQueriesDoNotLoadTheOwner() {
+        Workout found = workoutRepository.findByUserId(user.getId()).get(0);
+        assertFalse(Hibernate.isInitialized(found.getUser()));
+        // The owner's id is still available without loading it
+        assertEquals(user.getId(), found.getUser().getId());
+        assertFalse(Hibernate.isInitialized(workoutRepository.findByIdAndUserId(workout.getId(), user.getId()).get().getUser()));
+    }
+
+    @Test
+    void workoutExercisesForDtosLoadOnlyTheExercise() {
+        for (List<WorkoutExercise> found : List.of(
+                workoutExerciseRepository.findByWorkoutIdAndWorkoutDate(workout.getId(), workout.getDate()),
+                workoutExerciseRepository.findByWorkoutIdInAndWorkoutDateBetween(List.of(workout.getId()), workout.getDate(), workout.getDate()))) {
+            WorkoutExercise we = found.get(0);
+            assertTrue(Hibernate.isInitialized(we.getExercise()));
+            assertFalse(Hibernate.isInitialized(we.getExercise().getCreatedBy()));
+            assertFalse(Hibernate.isInitialized(we.getWorkout()));
+        }
+    }
+
+    @Test
+    void exerciseCreatorIsNotLoaded() {
+        Exercise found = exerciseRepository.findById(exercise.getId()).get();
+        assertFalse(Hibernate.isInitialized(found.getCreatedBy()));
+        // Ownership checks only need the creator's id
+        assertEquals(user.getId(), found.getCreatedBy().getId());
+    }
+}
@@ -0,0 +1,147 @@
+package com.fitlog.repository;
+
+import com.fitlog.entity.Exercise;
+import com.fitlog.entity.User;
+import com.fitlog.entity.Workout;
+import com.fitlog.entity.WorkoutExercise;
+import com.fitlog.trace.SqlTrace;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+// Use the test profile configuration (application-test.properties) to ensure tests run against H2, not the real database
+@org.springframework.test.context.TestPropertySource(locations = "classpath:application-test.properties")
+public class WorkoutExerciseBulkOperationsTest {
+    // Matches spring.jpa.properties.hibernate.jdbc.batch_size
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private WorkoutExerciseRepository workoutExerciseRepository;
+
+    private User user;
+    private Workout workout;
+    private Exercise exercise;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("bulk+" + UUID.randomUUID().toString().substring(0, 8) + "@example.com");
+        user.setPassword("hash");
+        user.setRole("USER");
+        user = userRepository.save(user);
+        exercise = new Exercise();
+        exercise.setName("Bulk Squat-" + UUID.randomUUID());
+        exercise.setPublic(true);
+        exercise.setActive(true);
+        exercise.setCreatedBy(user);
+        exercise = exerciseRepository.save(exercise);
+        workout = new Workout();
+        workout.setDate(LocalDate.now());
+        workout.setUser(user);
+        workout = workoutRepository.save(workout);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        workoutExerciseRepository.deleteAll(workoutExerciseRepository.findByWorkoutIdAndWorkoutDate(workout.getId(), workout.getDate()));
+        workoutRepository.delete(workout);
+        exerciseRepository.delete(exercise);
+        userRepository.delete(user);
+    }
+
+    // SQL statements (single or batched) starting with the given keyword, run while trace was active
+    private static List<SqlTrace.Statement> statements(SqlTrace trace, String keyword) {
+        return trace.getStatements().stream()
+                .filter(statement -> statement.getSql().trim().toLowerCase().startsWith(keyword))
+                .toList();
+    }
+
+    private List<WorkoutExercise> newRows(int count) {
+        List<WorkoutExercise> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            WorkoutExercise we = new WorkoutExercise();
+            we.setWorkout(workout);
+            we.setWorkoutDate(workout.getDate());
+            we.setExercise(exercise);
+            we.setPosition(i + 1);
+            we.setSets("[{\"reps\":5,\"weight\":100}]");
+            rows.add(we);
+        }
+        return rows;
+    }
+
+    @Test
+    void insertAllWritesRowsInJdbcBatches() {
+        int rows = 2 * BATCH_SIZE + 20;
+        SqlTrace trace = SqlTrace.start(true);
+        List<WorkoutExercise> inserted;
+        try {
+            inserted = workoutExerciseRepository.insertAll(newRows(rows));
+        } finally {
+            SqlTrace.stop();
+        }
+        // One executeBatch per BATCH_SIZE rows instead of one INSERT per row
+        List<SqlTrace.Statement> inserts = statements(trace, "insert");
+        assertEquals(3, inserts.size());
+        assertEquals(rows, inserts.stream().mapToLong(SqlTrace.Statement::getRows).sum(), "rows inserted by the batches");
+        assertTrue(inserted.stream().allMatch(we -> we.getId() != null));
+        assertEquals(rows, workoutExerciseRepository.findByWorkoutIdAndWorkoutDate(workout.getId(), workout.getDate()).size());
+    }
+
+    @Test
+    void insertAllRequiresTheWorkoutDate() {
+        List<WorkoutExercise> rows = newRows(3);
+        rows.get(2).setWorkoutDate(null);
+        // The repository proxy translates the IllegalArgumentException
+        assertThrows(InvalidDataAccessApiUsageException.class, () -> workoutExerciseRepository.insertAll(rows));
+        // Checked before anything is written
+        assertTrue(workoutExerciseRepository.findByWorkoutIdAndWorkoutDate(workout.getId(), workout.getDate()).isEmpty());
+    }
+
+    @Test
+    void updateSetsWritesRowsInJdbcBatches() {
+        int rows = 2 * BATCH_SIZE + 20;
+        List<WorkoutExercise> inserted = workoutExerciseRepository.insertAll(newRows(rows));
+        Map<UUID, String> setsById = new HashMap<>();
+        for (WorkoutExercise we : inserted) {
+            setsById.put(we.getId(), "[{\"reps\":" + we.getPosition() + ",\"weight\":60}]");
+        }
+        // Unknown ids are ignored
+        setsById.put(UUID.randomUUID(), "[]");
+
+        SqlTrace trace = SqlTrace.start(true);
+        int updated;
+        try {
+            updated = workoutExerciseRepository.updateSets(setsById);
+        } finally {
+            SqlTrace.stop();
+        }
+        assertEquals(rows, updated);
+        assertEquals(3, statements(trace, "update").size());
+        for (WorkoutExercise we : workoutExerciseRepository.findByWorkoutIdAndWorkoutDate(workout.getId(), workout.getDate())) {
+            assertEquals("[{\"reps\":" + we.getPosition() + ",\"weight\":60}]", we.getSets());
+        }
+    }
+}
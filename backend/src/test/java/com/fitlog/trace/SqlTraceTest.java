@@ -0,0 +1,55 @@
+package com.fitlog.trace;
+
+import com.fitlog.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+// Use the test profile configuration (application-test.properties) to ensure tests run against H2, not the real database
+@org.springframework.test.context.TestPropertySource(locations = "classpath:application-test.properties")
+public class SqlTraceTest {
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void stopTrace() {
+        SqlTrace.stop();
+    }
+
+    @Test
+    void tracesThatAreNotDetailedCountStatementsWithoutWrappingConnections() throws Exception {
+        SqlTrace trace = SqlTrace.start(false);
+        try (Connection connection = dataSource.getConnection()) {
+            assertFalse(Proxy.isProxyClass(connection.getClass()));
+        }
+        userRepository.findByEmail("nobody@example.com");
+        userRepository.findByEmail("nobody@example.com");
+        assertEquals(2, trace.getStatementCount());
+        assertTrue(trace.getTotalNanos() > 0);
+        assertTrue(trace.getStatements().isEmpty());
+    }
+
+    @Test
+    void detailedTracesRecordStatementsAndRowsOnce() throws Exception {
+        SqlTrace trace = SqlTrace.start(true);
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue(Proxy.isProxyClass(connection.getClass()));
+        }
+        userRepository.findByEmail("nobody@example.com");
+        // Counted by the proxies only, not again by the session listener
+        assertEquals(1, trace.getStatementCount());
+        assertEquals(1, trace.getStatements().size());
+        assertEquals(0, trace.getRowsReturned());
+    }
+}
@@ -0,0 +1,203 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Synthetic dataset generator for load tests and query-plan checks.
+ *
+ * Writes users.csv, exercises.csv, workouts.csv and workout_exercises.csv in PostgreSQL COPY CSV format
+ * (load them with load.sql). Output is deterministic for a given seed and set of options.
+ *
+ * Shape of the data:
+ *  - activity is skewed: workouts per user follow a log-normal distribution (a few users log
+ *    hundreds of sessions, most log a handful), capped at one workout per day
+ *  - exercise popularity is Zipf-like: the big lifts appear in most sessions
+ *  - 3-10 exercises per workout, 1-8 sets per exercise (mostly 3-5), reps and weights in realistic steps
+ *
+ * Run with the JDK's single-file launcher (no build needed):
+ *   java DatasetGenerator.java --users 1000000 --workouts 50000000 --seed 42 --out /tmp/fitlog-data
+ */
+public class DatasetGenerator {
+    // BCrypt hash of "password" (same as the dev seed users), so any generated user can log in
+    private static final String PASSWORD_HASH = "$2a$10$8FWJW9rDqQHGC56HDpGT3.U5uYkiv6eEkJfNvt3criOLYaYs1.FrG";
+    private static final String[] BASE_EXERCISES = {
+        "Bench Press", "Squat", "Deadlift", "Overhead Press", "Barbell Row", "Pull-Up", "Chin-Up",
+        "Incline Bench Press", "Leg Press", "Romanian Deadlift", "Front Squat", "Dumbbell Press",
+        "Lat Pulldown", "Seated Cable Row", "Face Pull", "Lateral Raise", "Tricep Pushdown",
+        "Skullcrusher", "Bicep Curl", "Hammer Curl", "Leg Curl", "Leg Extension", "Calf Raise",
+        "Hip Thrust", "Lunge", "Dip", "Push-Up", "Plank", "Cable Fly", "Shrugs"
+    };
+    private static final String[] MUSCLE_GROUPS = {
+        "chest,triceps", "quadriceps,glutes", "back,glutes,hamstrings", "shoulders,triceps", "back,biceps",
+        "hamstrings", "quadriceps", "calves", "core", "biceps", "triceps", "shoulders"
+    };
+    // Latest workout date; fixed so output does not depend on the day it is generated
+    private static final LocalDate END_DATE = LocalDate.of(2025, 1, 1);
+    private static final LocalDateTime CREATED_AT = END_DATE.atStartOfDay();
+
+    private final long seed;
+    private final int users;
+    private final long targetWorkouts;
+    private final int exercises;
+    private final double activitySigma;
+    private final int maxWorkoutsPerUser;
+    private final Path out;
+
+    DatasetGenerator(Map<String, String> options) {
+        seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        targetWorkouts = Long.parseLong(options.getOrDefault("workouts", String.valueOf(users * 50L)));
+        exercises = Integer.parseInt(options.getOrDefault("exercises", "300"));
+        activitySigma = Double.parseDouble(options.getOrDefault("skew", "1.2"));
+        maxWorkoutsPerUser = Integer.parseInt(options.getOrDefault("max-workouts-per-user", "1500"));
+        out = Path.of(options.getOrDefault("out", "generated"));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        new DatasetGenerator(options).generate();
+    }
+
+    void generate() throws IOException {
+        Files.createDirectories(out);
+        long start = System.nanoTime();
+        UUID[] exerciseIds = writeUsersAndExercises();
+        long[] counts = writeWorkouts(exerciseIds);
+        System.out.printf("Wrote %d users, %d exercises, %d workouts, %d workout exercises to %s in %ds%n",
+                users, exercises, counts[0], counts[1], out.toAbsolutePath(), (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    // User 0 is the admin who owns the public exercise catalog
+    private UUID[] writeUsersAndExercises() throws IOException {
+        try (BufferedWriter w = writer("users.csv")) {
+            w.write("id,email,password,created_at,updated_at,role,email_verified\n");
+            for (int u = 0; u < users; u++) {
+                w.write(userId(u) + ",user" + u + "@gen.fitlog.test," + PASSWORD_HASH + "," + CREATED_AT + "," + CREATED_AT
+                        + "," + (u == 0 ? "ADMIN" : "USER") + ",true\n");
+            }
+        }
+        UUID[] ids = new UUID[exercises];
+        SplittableRandom random = new SplittableRandom(seed ^ 0x5DEECE66DL);
+        try (BufferedWriter w = writer("exercises.csv")) {
+            w.write("id,is_public,muscle_groups,name,is_active,notes,created_at,updated_at,created_by\n");
+            for (int e = 0; e < exercises; e++) {
+                ids[e] = uuid(CREATED_AT, random);
+                String base = BASE_EXERCISES[e % BASE_EXERCISES.length];
+                String name = e < BASE_EXERCISES.length ? base : base + " (variation " + (e / BASE_EXERCISES.length) + ")";
+                w.write(ids[e] + ",true," + csv(MUSCLE_GROUPS[e % MUSCLE_GROUPS.length]) + "," + csv(name) + ",true,,"
+                        + CREATED_AT + "," + CREATED_AT + "," + userId(0) + "\n");
+            }
+        }
+        return ids;
+    }
+
+    private long[] writeWorkouts(UUID[] exerciseIds) throws IOException {
+        // First pass: total activity, so per-user workout counts add up to roughly the target
+        double totalActivity = 0;
+        for (int u = 0; u < users; u++) totalActivity += activity(u);
+        // Cumulative Zipf weights over the catalog (index 0 is the most popular exercise)
+        double[] popularity = new double[exerciseIds.length];
+        double sum = 0;
+        for (int e = 0; e < popularity.length; e++) {
+            sum += 1.0 / Math.pow(e + 1, 1.1);
+            popularity[e] = sum;
+        }
+        long workouts = 0;
+        long workoutExercises = 0;
+        try (BufferedWriter ww = writer("workouts.csv"); BufferedWriter we = writer("workout_exercises.csv")) {
+            ww.write("id,user_id,date,notes,created_at,updated_at\n");
+            we.write("id,workout_id,workout_date,exercise_id,position,sets,notes,created_at,updated_at\n");
+            StringBuilder sets = new StringBuilder();
+            for (int u = 0; u < users; u++) {
+                // Each user has their own random stream, so changing one user's data leaves the others intact
+                SplittableRandom random = new SplittableRandom(seed * 31 + u);
+                int count = (int) Math.min(maxWorkoutsPerUser, Math.round(targetWorkouts * activity(u) / totalActivity));
+                LocalDate date = END_DATE.minusDays(random.nextInt(30));
+                UUID user = userId(u);
+                for (int i = 0; i < count; i++) {
+                    LocalDateTime at = date.atTime(6 + random.nextInt(15), random.nextInt(60));
+                    UUID workoutId = uuid(at, random);
+                    ww.write(workoutId + "," + user + "," + date + ",," + at + "," + at + "\n");
+                    workouts++;
+                    int exerciseCount = 3 + random.nextInt(4) + random.nextInt(5); // 3-10, peak around 6
+                    for (int p = 1; p <= exerciseCount; p++) {
+                        UUID exerciseId = exerciseIds[pick(popularity, random)];
+                        writeSets(sets, random);
+                        we.write(uuid(at, random) + "," + workoutId + "," + date + "," + exerciseId + "," + p + "," + csv(sets.toString())
+                                + ",," + at + "," + at + "\n");
+                        workoutExercises++;
+                    }
+                    // Going back in time: 1-4 days between sessions, one workout per user and day
+                    date = date.minusDays(1 + random.nextInt(4));
+                }
+            }
+        }
+        return new long[] {workouts, workoutExercises};
+    }
+
+    // Log-normal activity weight of a user, derived from the seed only
+    private double activity(int user) {
+        SplittableRandom random = new SplittableRandom(seed * 17 + user);
+        // Box-Muller standard normal
+        double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+        return Math.exp(activitySigma * gaussian);
+    }
+
+    // sets JSON as stored by the app, e.g. [{"reps":8,"weight":60.0},...]
+    private static void writeSets(StringBuilder sets, SplittableRandom random) {
+        int setCount = Math.max(1, Math.min(8, 3 + random.nextInt(3) + (random.nextInt(10) == 0 ? random.nextInt(4) - 2 : 0)));
+        double weight = 2.5 * (4 + random.nextInt(60));
+        sets.setLength(0);
+        sets.append('[');
+        for (int s = 0; s < setCount; s++) {
+            if (s > 0) sets.append(',');
+            sets.append("{\"reps\":").append(3 + random.nextInt(13)).append(",\"weight\":").append(weight).append('}');
+        }
+        sets.append(']');
+    }
+
+    private static int pick(double[] cumulative, SplittableRandom random) {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        int low = 0, high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < target) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+
+    private UUID userId(int user) {
+        return uuid(CREATED_AT, new SplittableRandom(seed * 13 + user));
+    }
+
+    // Time-ordered (version 7) UUID for a row created at the given time, like the backend generates;
+    // the remaining bits come from a seeded stream
+    private static UUID uuid(LocalDateTime createdAt, SplittableRandom random) {
+        long millis = createdAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+        long msb = (millis << 16) | 0x7000L | (random.nextLong() & 0xFFFL);
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private BufferedWriter writer(String name) throws IOException {
+        return Files.newBufferedWriter(out.resolve(name), StandardCharsets.UTF_8);
+    }
+}
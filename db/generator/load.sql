@@ -0,0 +1,22 @@
+-- Load a generated dataset (see README.md) into an empty schema created by the backend.
+-- Run from the directory holding the CSV files:
+--   psql -h localhost -U fitlog_user -d fitlog -f /path/to/db/generator/load.sql
+-- COPY is far faster than INSERTs; foreign keys are checked once per table, in dependency order.
+\set ON_ERROR_STOP on
+\timing on
+
+BEGIN;
+-- Monthly partitions of workouts and workout_exercises for the generated dates (END_DATE in DatasetGenerator
+-- and up to 1500 workouts per user a few days apart); anything older goes to the default partitions
+SELECT fitlog_create_partitions(DATE '2008-01-01', DATE '2025-01-01');
+\copy users (id, email, password, created_at, updated_at, role, email_verified) FROM 'users.csv' WITH (FORMAT csv, HEADER true)
+\copy exercises (id, is_public, muscle_groups, name, is_active, notes, created_at, updated_at, created_by) FROM 'exercises.csv' WITH (FORMAT csv, HEADER true)
+\copy workouts (id, user_id, date, notes, created_at, updated_at) FROM 'workouts.csv' WITH (FORMAT csv, HEADER true)
+\copy workout_exercises (id, workout_id, workout_date, exercise_id, position, sets, notes, created_at, updated_at) FROM 'workout_exercises.csv' WITH (FORMAT csv, HEADER true)
+COMMIT;
+
+-- Fresh statistics so query plans reflect the new cardinalities
+ANALYZE users;
+ANALYZE exercises;
+ANALYZE workouts;
+ANALYZE workout_exercises;
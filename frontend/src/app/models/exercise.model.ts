@@ -7,11 +7,6 @@ export interface Exercise {
   updatedAt: string;
   createdBy: {
     id: string;
-    email: string;
-    password: string;
-    createdAt: string;
-    updatedAt: string;
-    role: string;
   };
   public: boolean;
   active: boolean;
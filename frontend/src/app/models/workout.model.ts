@@ -12,6 +12,8 @@ export interface WorkoutExercise {
   position: number;
   sets: string;
   notes: string;
+  // Optimistic lock version: sent back in If-Match to update only the version that was read
+  version?: number;
   exercise: {
     id: string;
     name: string;
@@ -16,7 +16,7 @@ const mockExercises: Exercise[] = [
     notes: '',
     createdAt: '',
     updatedAt: '',
-    createdBy: { id: '', email: '', password: '', createdAt: '', updatedAt: '', role: '' },
+    createdBy: { id: '' },
     public: true,
     active: true,
   },
@@ -27,7 +27,7 @@ const mockExercises: Exercise[] = [
     notes: '',
     createdAt: '',
     updatedAt: '',
-    createdBy: { id: '', email: '', password: '', createdAt: '', updatedAt: '', role: '' },
+    createdBy: { id: '' },
     public: true,
     active: true,
   },
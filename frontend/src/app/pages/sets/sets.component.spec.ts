@@ -1,3 +1,4 @@
+import { HttpErrorResponse } from '@angular/common/http';
 import { ComponentFixture, TestBed } from '@angular/core/testing';
 import { MatSnackBar } from '@angular/material/snack-bar';
 import { Router } from '@angular/router';
@@ -31,6 +32,7 @@ describe('SetsComponent', () => {
         position: 0,
         notes: '',
         sets: '',
+        version: 3,
         exercise: {},
       } as unknown as import('../../models/workout.model').WorkoutExercise),
     );
@@ -83,16 +85,65 @@ describe('SetsComponent', () => {
         position: 0,
         notes: '',
         sets: '[{"weight":10,"reps":2}]',
+        version: 4,
         exercise: {},
       } as unknown as import('../../models/workout.model').WorkoutExercise),
     );
     component.weight = 10;
     component.reps = 2;
     component.saveSet();
-    expect(workoutServiceSpy.putWorkoutExerciseById).toHaveBeenCalledWith('ex1', [
-      { weight: 10, reps: 2 },
-    ]);
+    // Made on top of the version read on init
+    expect(workoutServiceSpy.putWorkoutExerciseById).toHaveBeenCalledWith(
+      'ex1',
+      [{ weight: 10, reps: 2 }],
+      { version: 3, sets: [] },
+    );
     expect(component.setsArray).toEqual([{ weight: 10, reps: 2 }]);
+
+    // The next update is made on top of the version the backend returned
+    component.saveSet();
+    expect(workoutServiceSpy.putWorkoutExerciseById).toHaveBeenCalledWith(
+      'ex1',
+      [
+        { weight: 10, reps: 2 },
+        { weight: 10, reps: 2 },
+      ],
+      { version: 4, sets: [{ weight: 10, reps: 2 }] },
+    );
+  });
+
+  it('should show the current sets when the update conflicts (412)', () => {
+    component.workoutExerciseId = 'ex1';
+    workoutServiceSpy.putWorkoutExerciseById.and.returnValue(
+      throwError(
+        () =>
+          new HttpErrorResponse({
+            status: 412,
+            error: {
+              id: 'ex1',
+              sets: '[{"weight":50,"reps":5}]',
+              version: 7,
+              error: 'Workout exercise was changed since version 3.',
+            },
+          }),
+      ),
+    );
+    spyOn(console, 'error');
+    component.saveSet();
+    expect(component.setsArray).toEqual([{ weight: 50, reps: 5 }]);
+    expect(snackBarSpy.open).toHaveBeenCalled();
+    expect(console.error).not.toHaveBeenCalled();
+
+    // Retrying starts from the current version
+    component.saveSet();
+    expect(workoutServiceSpy.putWorkoutExerciseById).toHaveBeenCalledWith(
+      'ex1',
+      [
+        { weight: 50, reps: 5 },
+        { weight: 0, reps: 1 },
+      ],
+      { version: 7, sets: [{ weight: 50, reps: 5 }] },
+    );
   });
 
   it('should handle error on saveSet', () => {
@@ -115,13 +166,16 @@ describe('SetsComponent', () => {
         position: 0,
         notes: '',
         sets: '[{"weight":20,"reps":3}]',
+        version: 4,
         exercise: {},
       } as unknown as import('../../models/workout.model').WorkoutExercise),
     );
     component.deleteSet(0);
-    expect(workoutServiceSpy.putWorkoutExerciseById).toHaveBeenCalledWith('ex1', [
-      { weight: 20, reps: 3 },
-    ]);
+    expect(workoutServiceSpy.putWorkoutExerciseById).toHaveBeenCalledWith(
+      'ex1',
+      [{ weight: 20, reps: 3 }],
+      { version: 3, sets: [] },
+    );
     expect(component.setsArray).toEqual([{ weight: 20, reps: 3 }]);
   });
 
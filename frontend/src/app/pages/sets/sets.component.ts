@@ -1,4 +1,5 @@
 import { CommonModule } from '@angular/common';
+import { HttpErrorResponse } from '@angular/common/http';
 import { Component, OnInit } from '@angular/core';
 import { FormsModule } from '@angular/forms';
 import { MatButtonModule } from '@angular/material/button';
@@ -6,6 +7,7 @@ import { MatIconModule } from '@angular/material/icon';
 import { MatInputModule } from '@angular/material/input';
 import { MatSnackBar, MatSnackBarModule } from '@angular/material/snack-bar';
 import { Router } from '@angular/router';
+import { WorkoutExercise } from '../../models/workout.model';
 import { WorkoutService } from '../../services/workout.service';
 
 @Component({
@@ -35,6 +37,9 @@ export class SetsComponent implements OnInit {
   setsArray: { weight: number; reps: number }[] = [];
   exerciseName = '';
 
+  // The version and sets last read from the backend; updates are made on top of them (If-Match)
+  private base: { version: number; sets: { weight: number; reps: number }[] } | undefined;
+
   constructor(
     private router: Router,
     private workoutService: WorkoutService,
@@ -69,6 +74,7 @@ export class SetsComponent implements OnInit {
           } else {
             this.setsArray = [];
           }
+          this.base = data.version != null ? { version: data.version, sets: this.setsArray } : undefined;
         },
         error: err => console.error('Error fetching workoutExercise:', err),
       });
@@ -103,19 +109,9 @@ export class SetsComponent implements OnInit {
     }
 
     // Stringify and update via PUT
-    this.workoutService.putWorkoutExerciseById(this.workoutExerciseId, this.setsArray).subscribe({
-      next: data => {
-        // Update setsArray with the response (parsed)
-        if (data.sets && data.sets.trim() !== '') {
-          try {
-            this.setsArray = JSON.parse(data.sets);
-          } catch (e) {
-            console.error('Failed to parse sets after PUT:', e);
-            // Keep local setsArray
-          }
-        }
-      },
-      error: err => console.error('Error updating workoutExercise:', err),
+    this.workoutService.putWorkoutExerciseById(this.workoutExerciseId, this.setsArray, this.base).subscribe({
+      next: data => this.applySaved(data, 'Failed to parse sets after PUT:'),
+      error: err => this.handleUpdateError(err, 'Error updating workoutExercise:'),
     });
   }
 
@@ -128,22 +124,46 @@ export class SetsComponent implements OnInit {
     // Remove the set at the given index
     this.setsArray = this.setsArray.filter((_, i) => i !== index);
     // Update the backend with the new setsArray
-    this.workoutService.putWorkoutExerciseById(this.workoutExerciseId, this.setsArray).subscribe({
-      next: data => {
-        // Update setsArray with the response (parsed)
-        if (data.sets && data.sets.trim() !== '') {
-          try {
-            this.setsArray = JSON.parse(data.sets);
-          } catch (e) {
-            console.error('Failed to parse sets after DELETE:', e);
-            // Keep local setsArray
-          }
-        }
-      },
-      error: err => console.error('Error updating workoutExercise after delete:', err),
+    this.workoutService.putWorkoutExerciseById(this.workoutExerciseId, this.setsArray, this.base).subscribe({
+      next: data => this.applySaved(data, 'Failed to parse sets after DELETE:'),
+      error: err => this.handleUpdateError(err, 'Error updating workoutExercise after delete:'),
     });
   }
 
+  /**
+   * Shows the workout exercise the backend holds after a write (or a rejected one) and makes
+   * its version the base of the next update.
+   */
+  private applySaved(data: WorkoutExercise, parseErrorMessage: string) {
+    // Update setsArray with the response (parsed)
+    if (data.sets && data.sets.trim() !== '') {
+      try {
+        this.setsArray = JSON.parse(data.sets);
+      } catch (e) {
+        console.error(parseErrorMessage, e);
+        // Keep local setsArray
+      }
+    } else {
+      this.setsArray = [];
+    }
+    this.base = data.version != null ? { version: data.version, sets: this.setsArray } : undefined;
+  }
+
+  /**
+   * 412: the sets were changed elsewhere (another tab or device) in a way that does not merge with
+   * this change. The error body is the current workout exercise: show it instead of overwriting it.
+   */
+  private handleUpdateError(err: unknown, message: string) {
+    if (err instanceof HttpErrorResponse && err.status === 412 && err.error) {
+      this.applySaved(err.error as WorkoutExercise, 'Failed to parse sets after a conflict:');
+      this.snackBar.open('These sets were changed elsewhere. Showing the latest sets.', 'Close', {
+        duration: 3000,
+      });
+      return;
+    }
+    console.error(message, err);
+  }
+
   /**
    * Deletes the entire workout exercise and navigates home on success.
    * Shows a snackBar on error.
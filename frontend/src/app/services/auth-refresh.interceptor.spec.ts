@@ -0,0 +1,84 @@
+import { HttpClient, provideHttpClient, withInterceptors } from '@angular/common/http';
+import { HttpTestingController, provideHttpClientTesting } from '@angular/common/http/testing';
+import { TestBed } from '@angular/core/testing';
+import { environment } from '../../environments/environment';
+import { authRefreshInterceptor } from './auth-refresh.interceptor';
+
+describe('authRefreshInterceptor', () => {
+  let http: HttpClient;
+  let httpMock: HttpTestingController;
+
+  beforeEach(() => {
+    TestBed.configureTestingModule({
+      providers: [
+        provideHttpClient(withInterceptors([authRefreshInterceptor])),
+        provideHttpClientTesting(),
+      ],
+    });
+    http = TestBed.inject(HttpClient);
+    httpMock = TestBed.inject(HttpTestingController);
+  });
+
+  afterEach(() => {
+    httpMock.verify();
+  });
+
+  it('should refresh and retry once on 401', () => {
+    let body: unknown;
+    http.get(`${environment.apiUrl}/workouts`).subscribe(res => (body = res));
+    httpMock
+      .expectOne(`${environment.apiUrl}/workouts`)
+      .flush({}, { status: 401, statusText: 'Unauthorized' });
+    const refresh = httpMock.expectOne(`${environment.apiUrl}/users/refresh`);
+    expect(refresh.request.method).toBe('POST');
+    expect(refresh.request.withCredentials).toBeTrue();
+    refresh.flush({ message: 'Token refreshed.' });
+    httpMock.expectOne(`${environment.apiUrl}/workouts`).flush([]);
+    expect(body).toEqual([]);
+  });
+
+  it('should send one refresh for requests failing with 401 at the same time', () => {
+    const bodies: unknown[] = [];
+    http.get(`${environment.apiUrl}/workouts`).subscribe(res => bodies.push(res));
+    http.get(`${environment.apiUrl}/exercises`).subscribe(res => bodies.push(res));
+    httpMock
+      .expectOne(`${environment.apiUrl}/workouts`)
+      .flush({}, { status: 401, statusText: 'Unauthorized' });
+    httpMock
+      .expectOne(`${environment.apiUrl}/exercises`)
+      .flush({}, { status: 401, statusText: 'Unauthorized' });
+    httpMock
+      .expectOne(`${environment.apiUrl}/users/refresh`)
+      .flush({ message: 'Token refreshed.' });
+    httpMock.expectOne(`${environment.apiUrl}/workouts`).flush([]);
+    httpMock.expectOne(`${environment.apiUrl}/exercises`).flush([]);
+    expect(bodies).toEqual([[], []]);
+
+    // Once it is done, a later 401 refreshes again
+    http.get(`${environment.apiUrl}/workouts`).subscribe();
+    httpMock
+      .expectOne(`${environment.apiUrl}/workouts`)
+      .flush({}, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne(`${environment.apiUrl}/users/refresh`).flush({});
+    httpMock.expectOne(`${environment.apiUrl}/workouts`).flush([]);
+  });
+
+  it('should pass the original error through when refresh fails', () => {
+    let status = 0;
+    http.get(`${environment.apiUrl}/workouts`).subscribe({ error: err => (status = err.status) });
+    httpMock
+      .expectOne(`${environment.apiUrl}/workouts`)
+      .flush({}, { status: 401, statusText: 'Unauthorized' });
+    httpMock
+      .expectOne(`${environment.apiUrl}/users/refresh`)
+      .flush({}, { status: 401, statusText: 'Unauthorized' });
+    expect(status).toBe(401);
+  });
+
+  it('should not refresh for the login endpoint', () => {
+    http.post(`${environment.apiUrl}/users/login`, {}).subscribe({ error: () => undefined });
+    httpMock
+      .expectOne(`${environment.apiUrl}/users/login`)
+      .flush({}, { status: 401, statusText: 'Unauthorized' });
+  });
+});
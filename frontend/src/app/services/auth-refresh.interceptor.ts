@@ -0,0 +1,47 @@
+import { HttpClient, HttpErrorResponse, HttpInterceptorFn } from '@angular/common/http';
+import { inject } from '@angular/core';
+import { Observable, throwError } from 'rxjs';
+import { catchError, finalize, shareReplay, switchMap } from 'rxjs/operators';
+import { environment } from '../../environments/environment';
+
+// Endpoints that must never trigger a refresh (they either issue tokens or run without one)
+const SKIP_PATHS = ['/users/login', '/users/refresh', '/users/logout'];
+
+// The refresh in progress, if any. Refresh tokens are single-use: a second refresh with the same
+// cookie would be refused, so requests failing with 401 meanwhile wait for this one instead.
+let refreshInFlight: Observable<unknown> | null = null;
+
+function refreshAccessToken(http: HttpClient): Observable<unknown> {
+  if (!refreshInFlight) {
+    refreshInFlight = http
+      .post(`${environment.apiUrl}/users/refresh`, {}, { withCredentials: true })
+      .pipe(
+        finalize(() => (refreshInFlight = null)),
+        shareReplay({ bufferSize: 1, refCount: false }),
+      );
+  }
+  return refreshInFlight;
+}
+
+/**
+ * Access tokens are short-lived. When a request fails with 401, ask the backend for a new
+ * access token (using the refresh token cookie) and retry the request once. Requests that fail
+ * while a refresh is in progress share it.
+ */
+export const authRefreshInterceptor: HttpInterceptorFn = (req, next) => {
+  if (SKIP_PATHS.some(path => req.url.endsWith(path))) {
+    return next(req);
+  }
+  const http = inject(HttpClient);
+  return next(req).pipe(
+    catchError((error: HttpErrorResponse) => {
+      if (error.status !== 401) {
+        return throwError(() => error);
+      }
+      return refreshAccessToken(http).pipe(
+        catchError(() => throwError(() => error)),
+        switchMap(() => next(req)),
+      );
+    }),
+  );
+};
@@ -12,14 +12,7 @@ const mockExercises: Exercise[] = [
     notes: 'Use spotter',
     createdAt: '',
     updatedAt: '',
-    createdBy: {
-      id: 'u1',
-      email: 'test@example.com',
-      password: 'secret',
-      createdAt: '',
-      updatedAt: '',
-      role: 'USER',
-    },
+    createdBy: { id: 'u1' },
     public: true,
     active: true,
   },
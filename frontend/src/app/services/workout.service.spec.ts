@@ -87,4 +87,24 @@ describe('WorkoutService', () => {
     expect(req.request.withCredentials).toBeTrue();
     req.flush(mockWorkoutExercise);
   });
+
+  it('should update sets on top of the version read (If-Match, baseSets)', () => {
+    service
+      .putWorkoutExerciseById('w1', [{ weight: 10, reps: 2 }], { version: 3, sets: [] })
+      .subscribe();
+    const req = httpMock.expectOne(`${environment.apiUrl}/workout_exercises/w1`);
+    expect(req.request.method).toBe('PUT');
+    expect(req.request.headers.get('If-Match')).toBe('"3"');
+    expect(req.request.body).toEqual({ sets: '[{"weight":10,"reps":2}]', baseSets: '[]' });
+    expect(req.request.withCredentials).toBeTrue();
+    req.flush({});
+  });
+
+  it('should update sets unconditionally without a base version', () => {
+    service.putWorkoutExerciseById('w1', [{ weight: 10, reps: 2 }]).subscribe();
+    const req = httpMock.expectOne(`${environment.apiUrl}/workout_exercises/w1`);
+    expect(req.request.headers.has('If-Match')).toBeFalse();
+    expect(req.request.body).toEqual({ sets: '[{"weight":10,"reps":2}]' });
+    req.flush({});
+  });
 });
@@ -1,4 +1,4 @@
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpHeaders } from '@angular/common/http';
 import { Injectable } from '@angular/core';
 import { Observable } from 'rxjs';
 import { environment } from '../../environments/environment';
@@ -46,14 +46,26 @@ export class WorkoutService {
     });
   }
 
+  /**
+   * Replaces the sets of a workout exercise.
+   * With base (the version and sets the new sets were made from), the update only applies to that version
+   * (If-Match): the backend merges sets appended on both sides meanwhile, and answers anything else with
+   * 412 and the current workout exercise as the error body.
+   */
   putWorkoutExerciseById(
     workoutExerciseId: string,
     sets: { weight: number; reps: number }[],
+    base?: { version: number; sets: { weight: number; reps: number }[] },
   ): Observable<WorkoutExercise> {
     return this.http.put<WorkoutExercise>(
       `${this.apiUrl}/workout_exercises/${workoutExerciseId}`,
-      { sets: JSON.stringify(sets) },
-      { withCredentials: true },
+      base
+        ? { sets: JSON.stringify(sets), baseSets: JSON.stringify(base.sets) }
+        : { sets: JSON.stringify(sets) },
+      {
+        withCredentials: true,
+        headers: base ? new HttpHeaders({ 'If-Match': `"${base.version}"` }) : undefined,
+      },
     );
   }
 